@@ -1,11 +1,35 @@
 package de.samply.common.ldmclient;
 
+import com.google.common.util.concurrent.Futures;
 import de.samply.common.ldmclient.model.LdmQueryResult;
+import de.samply.common.ldmclient.transport.ApacheLdmTransport;
+import de.samply.common.ldmclient.transport.LdmRequest;
+import de.samply.common.ldmclient.transport.LdmResponse;
+import de.samply.common.ldmclient.transport.LdmTransport;
+import de.samply.common.ldmclient.transport.RequestPriority;
 import de.samply.share.model.common.Error;
 import de.samply.share.model.common.QueryResultStatistic;
 import de.samply.share.model.common.Result;
+import java.io.IOException;
 import java.io.Serializable;
+import java.net.InetAddress;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+import org.apache.http.HttpStatus;
 import org.apache.http.impl.client.CloseableHttpClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public abstract class AbstractLdmClient<T_RESULT extends Result,
     ResultStatisticsT extends Serializable,
@@ -33,12 +57,22 @@ public abstract class AbstractLdmClient<T_RESULT extends Result,
   protected static final String REST_PATH_STATS = "stats";
   protected static final String REST_PARAM_PAGE = "?page=";
   protected static final String REST_RESULTS_ONLY_SUFFIX = "?statisticsOnly=true";
-  private transient CloseableHttpClient httpClient;
-  private String ldmBaseUrl;
+  private static final Logger logger = LoggerFactory.getLogger(AbstractLdmClient.class);
+  private final transient LdmTransport transport;
+  private final AtomicReference<LdmClientConfig> config;
+  private transient volatile WarmUpReport lastWarmUpReport;
 
   public AbstractLdmClient(CloseableHttpClient httpClient, String ldmBaseUrl) {
-    this.httpClient = httpClient;
-    this.ldmBaseUrl = ldmBaseUrl;
+    this(httpClient, LdmClientConfig.builder(ldmBaseUrl).build());
+  }
+
+  public AbstractLdmClient(CloseableHttpClient httpClient, LdmClientConfig config) {
+    this(httpClient == null ? null : new ApacheLdmTransport(httpClient), config);
+  }
+
+  public AbstractLdmClient(LdmTransport transport, LdmClientConfig config) {
+    this.transport = transport;
+    this.config = new AtomicReference<>(config);
   }
 
   protected abstract Class<T_RESULT> getResultClass();
@@ -48,12 +82,40 @@ public abstract class AbstractLdmClient<T_RESULT extends Result,
   protected abstract Class<ErrorT> getErrorClass();
 
   protected String getFullPath(boolean statisticsOnly) {
-    String path = REST_PATH_REQUESTS;
-    if (statisticsOnly) {
-      path = path + REST_RESULTS_ONLY_SUFFIX;
-    }
+    return getConfig().getRequestsUrl(statisticsOnly);
+  }
+
+  /**
+   * Get the url of the statistics (or error) of the result at the given location.
+   *
+   * @param location The location (URL) of the result
+   * @return the url of the stats resource
+   */
+  protected static String getStatsPath(String location) {
+    return LdmClientUtil.appendWithTrailingSlash(
+        new StringBuilder(lengthOf(location) + REST_PATH_STATS.length() + 1), location)
+        .append(REST_PATH_STATS)
+        .toString();
+  }
+
+  /**
+   * Get the url of a page of the result at the given location.
+   *
+   * @param location  The location (URL) of the result
+   * @param pageIndex the index of the page
+   * @return the url of the result page
+   */
+  protected static String getResultPagePath(String location, int pageIndex) {
+    return LdmClientUtil.appendWithTrailingSlash(new StringBuilder(lengthOf(location) + 24),
+        location)
+        .append(REST_PATH_RESULT)
+        .append(REST_PARAM_PAGE)
+        .append(pageIndex)
+        .toString();
+  }
 
-    return LdmClientUtil.addTrailingSlash(getLdmBaseUrl()) + path;
+  private static int lengthOf(String location) {
+    return location == null ? 0 : location.length();
   }
 
   /**
@@ -80,12 +142,278 @@ public abstract class AbstractLdmClient<T_RESULT extends Result,
 
   public abstract LdmQueryResult getStatsOrError(String location) throws LdmClientException;
 
+  /**
+   * Get the Apache http client that is used by the transport of this client. Requests that are
+   * executed with it directly bypass the transport. Implementations should use {@link
+   * #execute(LdmRequest)} instead, e.g. with {@link #createGetRequest(String, RequestPriority)},
+   * so they work with every transport.
+   *
+   * @return the http client
+   * @throws IllegalStateException if this client uses another transport than {@link
+   *                               ApacheLdmTransport}
+   */
   public CloseableHttpClient getHttpClient() {
-    return httpClient;
+    if (!(transport instanceof ApacheLdmTransport)) {
+      throw new IllegalStateException("This LDM client uses " + (transport == null ? "no transport"
+          : transport.getClass().getSimpleName()) + ", use execute(LdmRequest) instead of the "
+          + "http client.");
+    }
+    return ((ApacheLdmTransport) transport).getHttpClient();
+  }
+
+  public LdmTransport getTransport() {
+    return transport;
+  }
+
+  /**
+   * Execute a request with the transport of this client.
+   *
+   * @param request the request
+   * @return the response
+   * @throws IOException on connection or protocol errors
+   */
+  protected LdmResponse execute(LdmRequest request) throws IOException {
+    return transport.execute(request);
+  }
+
+  /**
+   * Create a GET request with the configured http headers.
+   *
+   * @param uri      the uri to get
+   * @param priority the priority class of the request, e.g. {@link RequestPriority#BULK} for
+   *                 results
+   * @return the request, to be executed with {@link #execute(LdmRequest)}
+   */
+  protected LdmRequest createGetRequest(String uri, RequestPriority priority) {
+    return LdmRequest.get(uri).defaultHeaders(getConfig().getHttpHeaders()).priority(priority);
   }
 
   public String getLdmBaseUrl() {
-    return ldmBaseUrl;
+    return getConfig().getLdmBaseUrl();
+  }
+
+  /**
+   * Get the current (immutable) configuration of this client.
+   *
+   * @return the configuration
+   */
+  public LdmClientConfig getConfig() {
+    return config.get();
+  }
+
+  /**
+   * Atomically replace the configuration of this client (copy-on-write).
+   *
+   * @param update function that derives the new configuration from the current one
+   * @return the new configuration
+   */
+  protected LdmClientConfig updateConfig(UnaryOperator<LdmClientConfig> update) {
+    return config.updateAndGet(update);
+  }
+
+  /**
+   * Warm up this client, so that the first queries do not pay for the initialization. This
+   * creates the JAXB contexts, loads the model classes and parses the templates (see {@link
+   * #initializeEagerly()}), resolves the host name of the LDM and opens the configured number of
+   * connections ({@link LdmClientConfig#getWarmUpConnections()}) in parallel, each with a request
+   * of {@link #createWarmUpRequest()}. The client is ready if the LDM answered at least one of
+   * them with a status code accepted by {@link #isReadyStatusCode(int)}.
+   *
+   * <p>The connections stay in the connection pool of the transport as long as its keep-alive
+   * strategy allows. With https, the TLS sessions are cached by the SSL context of the http
+   * client, so connections opened later resume them instead of doing a full handshake. The method
+   * may be called again, e.g. by a periodic health check, to refresh the connections.
+   *
+   * @return the report, which is also available by {@link #getLastWarmUpReport()}
+   */
+  public WarmUpReport warmUp() {
+    LdmClientConfig currentConfig = getConfig();
+    int connections = Math.max(1, currentConfig.getWarmUpConnections());
+    Exception failure = null;
+    boolean initialized = false;
+    int opened = 0;
+    boolean ready = false;
+    int statusCode = 0;
+
+    long start = System.nanoTime();
+    try {
+      initializeEagerly();
+      initialized = true;
+    } catch (LdmClientException | RuntimeException e) {
+      failure = e;
+    }
+    long initializationEnd = System.nanoTime();
+
+    if (initialized) {
+      try {
+        InetAddress.getAllByName(new URL(currentConfig.getLdmBaseUrl()).getHost());
+      } catch (IOException e) {
+        failure = e;
+      }
+    }
+    long dnsEnd = System.nanoTime();
+
+    if (failure == null) {
+      ConnectionResult result = openConnections(connections);
+      opened = result.opened;
+      ready = result.ready;
+      statusCode = result.statusCode;
+      failure = result.failure;
+    }
+    long connectionEnd = System.nanoTime();
+
+    WarmUpReport report = new WarmUpReport(currentConfig.getLdmBaseUrl(), initialized,
+        TimeUnit.NANOSECONDS.toMillis(initializationEnd - start),
+        TimeUnit.NANOSECONDS.toMillis(dnsEnd - initializationEnd),
+        TimeUnit.NANOSECONDS.toMillis(connectionEnd - dnsEnd), connections, opened, ready,
+        statusCode, failure);
+    if (report.isReady()) {
+      logger.debug("Warmed up LDM client: " + report);
+    } else {
+      logger.warn("Warm-up of LDM client failed: " + report, failure);
+    }
+    lastWarmUpReport = report;
+    return report;
+  }
+
+  /**
+   * Warm up several clients (usually one per LDM) in parallel.
+   *
+   * @param clients the clients
+   * @return the reports in the order of the clients
+   * @see #warmUp()
+   */
+  public static List<WarmUpReport> warmUpAll(
+      Collection<? extends AbstractLdmClient<?, ?, ?>> clients) {
+    if (clients.isEmpty()) {
+      return Collections.emptyList();
+    }
+    ExecutorService executor = Executors.newFixedThreadPool(clients.size());
+    try {
+      List<Future<WarmUpReport>> futures = new ArrayList<>(clients.size());
+      for (AbstractLdmClient<?, ?, ?> client : clients) {
+        futures.add(executor.submit(client::warmUp));
+      }
+      List<WarmUpReport> reports = new ArrayList<>(clients.size());
+      for (Future<WarmUpReport> future : futures) {
+        reports.add(Futures.getUnchecked(future));
+      }
+      return reports;
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  /**
+   * Check if the last warm-up of this client succeeded. Useful as readiness check.
+   *
+   * @return true if the client has been warmed up successfully
+   */
+  public boolean isReady() {
+    WarmUpReport report = lastWarmUpReport;
+    return report != null && report.isReady();
+  }
+
+  /**
+   * Get the report of the last warm-up.
+   *
+   * @return the report or null if the client has not been warmed up yet
+   */
+  public WarmUpReport getLastWarmUpReport() {
+    return lastWarmUpReport;
+  }
+
+  /**
+   * Create everything that would otherwise be created lazily on the first requests, e.g. JAXB
+   * contexts. Called by {@link #warmUp()}; implementations should call the super method.
+   *
+   * @throws LdmClientException if the initialization fails
+   */
+  protected void initializeEagerly() throws LdmClientException {
+    // load the model classes
+    getResultClass();
+    getStatisticsClass();
+    getErrorClass();
+  }
+
+  /**
+   * Create the request that opens a connection on warm-up. The default is a HEAD request to the
+   * base url, which only shows that the LDM answers, as the base url is not part of the API of
+   * every LDM. Implementations may use an endpoint of their LDM instead, e.g. the metadata of a
+   * FHIR server, together with a stricter {@link #isReadyStatusCode(int)}.
+   *
+   * @return a new request
+   */
+  protected LdmRequest createWarmUpRequest() {
+    LdmClientConfig currentConfig = getConfig();
+    return LdmRequest.head(currentConfig.getNormalizedBaseUrl())
+        .defaultHeaders(currentConfig.getHttpHeaders())
+        .timeout(currentConfig.getExtendedTimeout());
+  }
+
+  /**
+   * Check if a response to a warm-up request shows that the LDM is ready. By default, every
+   * status code but server errors and rejected credentials (401, 403 and 407) is accepted, so
+   * e.g. 404 or 405 for the base url do not keep the client from being ready.
+   *
+   * @param statusCode the status code of the response to {@link #createWarmUpRequest()}
+   * @return true if the LDM is ready
+   */
+  protected boolean isReadyStatusCode(int statusCode) {
+    return statusCode < HttpStatus.SC_INTERNAL_SERVER_ERROR
+        && statusCode != HttpStatus.SC_UNAUTHORIZED
+        && statusCode != HttpStatus.SC_FORBIDDEN
+        && statusCode != HttpStatus.SC_PROXY_AUTHENTICATION_REQUIRED;
+  }
+
+  private ConnectionResult openConnections(int connections) {
+    ConnectionResult result = new ConnectionResult();
+    ExecutorService executor = Executors.newFixedThreadPool(connections);
+    // start the requests at the same time, so they do not reuse each other's connection
+    CountDownLatch startSignal = new CountDownLatch(1);
+    try {
+      List<Future<LdmResponse>> futures = new ArrayList<>(connections);
+      for (int i = 0; i < connections; i++) {
+        futures.add(executor.submit(() -> {
+          startSignal.await();
+          return execute(createWarmUpRequest());
+        }));
+      }
+      startSignal.countDown();
+      for (Future<LdmResponse> future : futures) {
+        try {
+          int statusCode = future.get().getStatusCode();
+          // every response opened a connection, but e.g. 401 or 503 means the LDM is not usable
+          result.opened++;
+          boolean accepted = isReadyStatusCode(statusCode);
+          result.ready |= accepted;
+          if (result.statusCode == 0 || (!accepted && isReadyStatusCode(result.statusCode))) {
+            result.statusCode = statusCode;
+          }
+          if (!accepted && result.failure == null) {
+            result.failure = new LdmClientException("Unexpected response code: " + statusCode);
+          }
+        } catch (ExecutionException e) {
+          if (result.failure == null && e.getCause() instanceof Exception) {
+            result.failure = (Exception) e.getCause();
+          }
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      result.failure = e;
+    } finally {
+      executor.shutdownNow();
+    }
+    return result;
+  }
+
+  private static final class ConnectionResult {
+
+    private int opened;
+    private boolean ready;
+    private int statusCode;
+    private Exception failure;
   }
 
   /**
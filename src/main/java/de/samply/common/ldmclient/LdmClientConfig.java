@@ -0,0 +1,281 @@
+package de.samply.common.ldmclient;
+
+import com.google.common.collect.ImmutableMap;
+import de.samply.common.ldmclient.cache.RemoteResultCache;
+import de.samply.common.ldmclient.cache.ResultCacheBackend;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Immutable configuration of an LDM client.
+ *
+ * <p>All derived values (normalized base url, request paths, immutable headers) are computed
+ * once on creation, so a single instance can be shared between any number of threads. Modifications
+ * return a new instance (copy-on-write).
+ */
+public final class LdmClientConfig {
+
+  /**
+   * Default timeout (in milliseconds) for LDMs that need longer to reply, e.g. CentraXX.
+   */
+  public static final int EXTENDED_TIMEOUT_DEFAULT = 60000;
+  /**
+   * Heap that one cached (expanded) result page is assumed to occupy. Used to derive the heap
+   * budget of the cache from the cache size when compact caching is enabled.
+   */
+  public static final long CACHE_PAGE_BYTES_DEFAULT = 512 * 1024;
+  /**
+   * Default number of connections that are opened by {@link AbstractLdmClient#warmUp()}.
+   */
+  public static final int WARM_UP_CONNECTIONS_DEFAULT = 2;
+  /**
+   * Default time (in milliseconds) after which values of the remote cache are no longer read.
+   */
+  public static final long REMOTE_CACHE_EXPIRE_AFTER_WRITE_DEFAULT = 24 * 60 * 60 * 1000L;
+
+  private final String ldmBaseUrl;
+  private final boolean useCaching;
+  private final int cacheSize;
+  private final boolean compactCaching;
+  private final long cacheMaximumBytes;
+  private final ResultCacheBackend remoteCacheBackend;
+  private final long remoteCacheExpireAfterWrite;
+  private final int extendedTimeout;
+  private final int warmUpConnections;
+  private final ImmutableMap<String, String> httpHeaders;
+
+  private final String normalizedBaseUrl;
+  private final String requestsUrl;
+  private final String requestsStatisticsOnlyUrl;
+  private final RemoteResultCache remoteCache;
+
+  private LdmClientConfig(Builder builder) {
+    this.ldmBaseUrl = builder.ldmBaseUrl;
+    this.useCaching = builder.useCaching;
+    this.cacheSize = builder.cacheSize;
+    this.compactCaching = builder.compactCaching;
+    this.cacheMaximumBytes = builder.cacheMaximumBytes > 0 ? builder.cacheMaximumBytes
+        : Math.max(0, cacheSize) * CACHE_PAGE_BYTES_DEFAULT;
+    this.remoteCacheBackend = builder.remoteCacheBackend;
+    this.remoteCacheExpireAfterWrite = builder.remoteCacheExpireAfterWrite;
+    this.extendedTimeout = builder.extendedTimeout;
+    this.warmUpConnections = builder.warmUpConnections;
+    this.httpHeaders = ImmutableMap.copyOf(builder.httpHeaders);
+
+    this.normalizedBaseUrl = LdmClientUtil.addTrailingSlash(ldmBaseUrl);
+    this.requestsUrl = normalizedBaseUrl + AbstractLdmClient.REST_PATH_REQUESTS;
+    this.requestsStatisticsOnlyUrl = requestsUrl + AbstractLdmClient.REST_RESULTS_ONLY_SUFFIX;
+    this.remoteCache = remoteCacheBackend == null ? null
+        : new RemoteResultCache(remoteCacheBackend, remoteCacheExpireAfterWrite);
+  }
+
+  public static Builder builder(String ldmBaseUrl) {
+    return new Builder(ldmBaseUrl);
+  }
+
+  /**
+   * Create a builder that is pre-filled with the values of this configuration.
+   *
+   * @return the builder
+   */
+  public Builder toBuilder() {
+    Builder builder = new Builder(ldmBaseUrl)
+        .useCaching(useCaching)
+        .cacheSize(cacheSize)
+        .compactCaching(compactCaching)
+        .cacheMaximumBytes(cacheMaximumBytes)
+        .remoteCache(remoteCacheBackend)
+        .remoteCacheExpireAfterWrite(remoteCacheExpireAfterWrite)
+        .extendedTimeout(extendedTimeout)
+        .warmUpConnections(warmUpConnections);
+    builder.httpHeaders.putAll(httpHeaders);
+    return builder;
+  }
+
+  /**
+   * Get a copy of this configuration with an additional (or replaced) http header.
+   *
+   * @param httpHeader the name of the header
+   * @param value      the value of the header
+   * @return the new configuration
+   */
+  public LdmClientConfig withHttpHeader(String httpHeader, String value) {
+    return toBuilder().httpHeader(httpHeader, value).build();
+  }
+
+  public String getLdmBaseUrl() {
+    return ldmBaseUrl;
+  }
+
+  /**
+   * Get the base url of the ldm, ending with exactly one slash.
+   *
+   * @return the normalized base url
+   */
+  public String getNormalizedBaseUrl() {
+    return normalizedBaseUrl;
+  }
+
+  /**
+   * Get the url to post requests to.
+   *
+   * @param statisticsOnly return data or only the count of the result
+   * @return the url of the requests resource
+   */
+  public String getRequestsUrl(boolean statisticsOnly) {
+    return statisticsOnly ? requestsStatisticsOnlyUrl : requestsUrl;
+  }
+
+  public boolean isUseCaching() {
+    return useCaching;
+  }
+
+  public int getCacheSize() {
+    return cacheSize;
+  }
+
+  /**
+   * Get the heap budget of the cache if compact caching is enabled. Compact pages are weighed by
+   * their estimated size, so far more of them fit than {@link #getCacheSize()} pages.
+   *
+   * @return the budget in bytes
+   */
+  public long getCacheMaximumBytes() {
+    return cacheMaximumBytes;
+  }
+
+  /**
+   * Check if cached result pages are kept in their compact representation. Only effective if the
+   * client provides a {@link ResultPageCompactor}.
+   *
+   * @return true if compact caching is enabled
+   */
+  public boolean isCompactCaching() {
+    return compactCaching;
+  }
+
+  /**
+   * Get the cache for result pages and statistics that is shared with other nodes. Result pages
+   * are only shared if the client provides a {@link ResultPageCompactor}.
+   *
+   * @return the remote cache or null if not configured
+   */
+  public RemoteResultCache getRemoteCache() {
+    return remoteCache;
+  }
+
+  public int getExtendedTimeout() {
+    return extendedTimeout;
+  }
+
+  public int getWarmUpConnections() {
+    return warmUpConnections;
+  }
+
+  /**
+   * Get the configured http headers. The map is immutable, so transports can use it for every
+   * request without copying.
+   *
+   * @return the http headers
+   */
+  public Map<String, String> getHttpHeaders() {
+    return httpHeaders;
+  }
+
+  public static final class Builder {
+
+    private final String ldmBaseUrl;
+    private final Map<String, String> httpHeaders = new LinkedHashMap<>();
+    private boolean useCaching;
+    private int cacheSize = LdmClientView.CACHE_DEFAULT_SIZE;
+    private boolean compactCaching;
+    private long cacheMaximumBytes;
+    private ResultCacheBackend remoteCacheBackend;
+    private long remoteCacheExpireAfterWrite = REMOTE_CACHE_EXPIRE_AFTER_WRITE_DEFAULT;
+    private int extendedTimeout = EXTENDED_TIMEOUT_DEFAULT;
+    private int warmUpConnections = WARM_UP_CONNECTIONS_DEFAULT;
+
+    private Builder(String ldmBaseUrl) {
+      this.ldmBaseUrl = ldmBaseUrl;
+    }
+
+    public Builder useCaching(boolean useCaching) {
+      this.useCaching = useCaching;
+      return this;
+    }
+
+    public Builder cacheSize(int cacheSize) {
+      this.cacheSize = cacheSize;
+      return this;
+    }
+
+    public Builder compactCaching(boolean compactCaching) {
+      this.compactCaching = compactCaching;
+      return this;
+    }
+
+    /**
+     * Set the heap budget of the cache if compact caching is enabled. Defaults to the cache size
+     * times {@link #CACHE_PAGE_BYTES_DEFAULT}.
+     *
+     * @param cacheMaximumBytes the budget in bytes, 0 for the default
+     * @return this builder
+     */
+    public Builder cacheMaximumBytes(long cacheMaximumBytes) {
+      this.cacheMaximumBytes = cacheMaximumBytes;
+      return this;
+    }
+
+    /**
+     * Set a cache backend that is shared with other nodes. It is read before result pages and
+     * statistics are requested from the LDM (read-through). If caching is enabled, the local
+     * cache is used as near cache in front of it.
+     *
+     * @param remoteCacheBackend the backend or null for none
+     * @return this builder
+     */
+    public Builder remoteCache(ResultCacheBackend remoteCacheBackend) {
+      this.remoteCacheBackend = remoteCacheBackend;
+      return this;
+    }
+
+    /**
+     * Set the time after which result pages and statistics of the remote cache are no longer
+     * read, e.g. because the LDM may reuse the ids of its requests after a reset. Defaults to
+     * {@link #REMOTE_CACHE_EXPIRE_AFTER_WRITE_DEFAULT}.
+     *
+     * @param remoteCacheExpireAfterWrite the time in milliseconds, 0 for never
+     * @return this builder
+     */
+    public Builder remoteCacheExpireAfterWrite(long remoteCacheExpireAfterWrite) {
+      this.remoteCacheExpireAfterWrite = remoteCacheExpireAfterWrite;
+      return this;
+    }
+
+    public Builder extendedTimeout(int extendedTimeout) {
+      this.extendedTimeout = extendedTimeout;
+      return this;
+    }
+
+    /**
+     * Set the number of connections that are opened in parallel when the client is warmed up.
+     * It should not exceed the connections per route of the http client.
+     *
+     * @param warmUpConnections the number of connections
+     * @return this builder
+     */
+    public Builder warmUpConnections(int warmUpConnections) {
+      this.warmUpConnections = warmUpConnections;
+      return this;
+    }
+
+    public Builder httpHeader(String httpHeader, String value) {
+      this.httpHeaders.put(httpHeader, value);
+      return this;
+    }
+
+    public LdmClientConfig build() {
+      return new LdmClientConfig(this);
+    }
+  }
+}
@@ -1,8 +1,14 @@
 package de.samply.common.ldmclient;
 
 import com.google.common.base.Splitter;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
+import de.samply.common.ldmclient.model.CqlQueryBatch;
+import de.samply.common.ldmclient.transport.LdmRequest;
+import de.samply.common.ldmclient.transport.LdmResponse;
+import de.samply.common.ldmclient.transport.LdmTransport;
 import de.samply.share.model.common.Result;
 import java.io.IOException;
 import java.io.InputStream;
@@ -10,18 +16,16 @@ import java.io.InputStreamReader;
 import java.io.Serializable;
 import java.nio.charset.StandardCharsets;
 import java.util.Base64;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
-import org.apache.http.Consts;
-import org.apache.http.Header;
-import org.apache.http.HttpEntity;
+import java.util.concurrent.ConcurrentHashMap;
 import org.apache.http.HttpHeaders;
 import org.apache.http.HttpStatus;
-import org.apache.http.client.methods.CloseableHttpResponse;
-import org.apache.http.client.methods.HttpPost;
-import org.apache.http.entity.StringEntity;
 import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.util.EntityUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -32,11 +36,21 @@ public abstract class LdmClientCqlQuery<
     AbstractLdmClient<T_RESULT, ResultStatisticsT, ErrorT> {
 
   private static final Logger logger = LoggerFactory.getLogger(LdmClientCqlQuery.class);
+  private static final String[] STUB_ENTITY_TYPES = {"patient", "specimen"};
+  private static final Map<String, JsonObject> stubs = new ConcurrentHashMap<>();
 
   public LdmClientCqlQuery(CloseableHttpClient httpClient, String ldmBaseUrl) {
     super(httpClient, ldmBaseUrl);
   }
 
+  public LdmClientCqlQuery(CloseableHttpClient httpClient, LdmClientConfig config) {
+    super(httpClient, config);
+  }
+
+  public LdmClientCqlQuery(LdmTransport transport, LdmClientConfig config) {
+    super(transport, config);
+  }
+
   private static String resourceLocation(String location) {
     Iterator<String> partIter = Splitter.on("/_history").split(location).iterator();
     return partIter.next();
@@ -50,12 +64,31 @@ public abstract class LdmClientCqlQuery<
     return loadJson(String.format("measure-%s-stub.json", entityType.toLowerCase()));
   }
 
+  /**
+   * Get a copy of a template. Templates are parsed once and cached.
+   *
+   * @param name the resource name of the template
+   * @return a copy that may be modified
+   */
   private static JsonObject loadJson(String name) {
+    return stubs.computeIfAbsent(name, LdmClientCqlQuery::parseJson).deepCopy();
+  }
+
+  private static JsonObject parseJson(String name) {
     InputStream in = LdmClientCqlQuery.class.getResourceAsStream(name);
     return new JsonParser().parse(new InputStreamReader(in, StandardCharsets.UTF_8))
         .getAsJsonObject();
   }
 
+  @Override
+  protected void initializeEagerly() throws LdmClientException {
+    super.initializeEagerly();
+    loadLibraryStub();
+    for (String entityType : STUB_ENTITY_TYPES) {
+      loadMeasureStub(entityType);
+    }
+  }
+
   /**
    * Post query to the ldm.
    * @param query the query as String
@@ -80,18 +113,101 @@ public abstract class LdmClientCqlQuery<
     return postMeasure(measure);
   }
 
+  /**
+   * Post several queries in one Library and one Measure. Every query becomes a group of the
+   * Measure, so all of them are evaluated at once. Use {@link #splitMeasureReport(JsonObject,
+   * CqlQueryBatch)} to get the results of the single queries.
+   *
+   * @param batch      the queries
+   * @param entityType the entityType (patient or specimen)
+   * @return url of the result
+   * @throws LdmClientException exception which can be thrown while posting the queries to the ldm
+   */
+  public String postQueryBatch(CqlQueryBatch batch, String entityType)
+      throws LdmClientException {
+    if (batch == null || batch.isEmpty()) {
+      throw new LdmClientException("Query batch is empty.");
+    }
+
+    String libraryUrl = "urn:uuid:" + UUID.randomUUID();
+    JsonObject library = createLibrary(libraryUrl, batch.toLibrary());
+    postLibrary(library);
+    JsonObject measure = createBatchMeasure(libraryUrl, entityType, batch.size());
+    return postMeasure(measure);
+  }
+
+  /**
+   * Split the MeasureReport of a batch into one MeasureReport per query. Each report contains
+   * the group of its query only. Groups are matched to the queries by their code.
+   *
+   * @param measureReport the MeasureReport of the whole batch
+   * @param batch         the batch that has been posted
+   * @return the MeasureReports by query name, in the order of the batch
+   * @throws LdmClientException if a group is missing, duplicated or does not belong to the batch
+   */
+  public static Map<String, JsonObject> splitMeasureReport(JsonObject measureReport,
+      CqlQueryBatch batch) throws LdmClientException {
+    JsonArray groups = measureReport.getAsJsonArray("group");
+    if (groups == null) {
+      throw new LdmClientException("MeasureReport does not contain any group.");
+    }
+
+    Map<String, JsonObject> groupsByCode = new HashMap<>();
+    for (JsonElement group : groups) {
+      String code = getGroupCode(group.getAsJsonObject());
+      if (code == null) {
+        throw new LdmClientException("MeasureReport contains a group without code.");
+      }
+      if (groupsByCode.put(code, group.getAsJsonObject()) != null) {
+        throw new LdmClientException("MeasureReport contains the group " + code + " twice.");
+      }
+    }
+
+    JsonObject reportWithoutGroups = measureReport.deepCopy();
+    reportWithoutGroups.remove("group");
+
+    List<String> names = batch.getNames();
+    Map<String, JsonObject> reports = new LinkedHashMap<>();
+    for (int i = 0; i < names.size(); i++) {
+      JsonObject group = groupsByCode.remove(CqlQueryBatch.getExpressionName(i));
+      if (group == null) {
+        throw new LdmClientException("MeasureReport does not contain the group of query "
+            + names.get(i) + ".");
+      }
+      JsonObject report = reportWithoutGroups.deepCopy();
+      JsonArray reportGroups = new JsonArray();
+      reportGroups.add(group.deepCopy());
+      report.add("group", reportGroups);
+      reports.put(names.get(i), report);
+    }
+    if (!groupsByCode.isEmpty()) {
+      throw new LdmClientException("MeasureReport contains unexpected groups: "
+          + groupsByCode.keySet());
+    }
+    return reports;
+  }
+
+  private static String getGroupCode(JsonObject group) {
+    JsonElement code = group.get("code");
+    if (code == null || !code.isJsonObject()) {
+      return null;
+    }
+    JsonElement text = code.getAsJsonObject().get("text");
+    return text == null || !text.isJsonPrimitive() ? null : text.getAsString();
+  }
+
   private void postLibrary(JsonObject library) throws LdmClientException {
-    String uri = getLdmBaseUrl() + "Library";
-    HttpPost httpPost = new HttpPost(uri);
-    httpPost.setHeader(HttpHeaders.CONTENT_TYPE, "application/fhir+json");
-    HttpEntity entity = new StringEntity(library.toString(), Consts.UTF_8);
-    httpPost.setEntity(entity);
-
-    try (CloseableHttpResponse response = getHttpClient().execute(httpPost)) {
-      int statusCode = response.getStatusLine().getStatusCode();
+    String uri = getConfig().getNormalizedBaseUrl() + "Library";
+    LdmRequest request = LdmRequest.post(uri, library.toString())
+        .defaultHeaders(getConfig().getHttpHeaders())
+        .header(HttpHeaders.CONTENT_TYPE, "application/fhir+json");
+
+    try {
+      LdmResponse response = execute(request);
+      int statusCode = response.getStatusCode();
       if (statusCode != HttpStatus.SC_CREATED) {
         logger.error(String.format("Library not created. Status code: %d, Response: %s",
-            statusCode, EntityUtils.toString(response.getEntity(), Consts.UTF_8)));
+            statusCode, response.getBody()));
         throw new LdmClientException("Request not created. Received status code " + statusCode);
       }
     } catch (IOException e) {
@@ -100,28 +216,27 @@ public abstract class LdmClientCqlQuery<
   }
 
   private String postMeasure(JsonObject measure) throws LdmClientException {
-    String uri = getLdmBaseUrl() + "Measure";
-    HttpPost httpPost = new HttpPost(uri);
-    httpPost.setHeader(HttpHeaders.CONTENT_TYPE, "application/fhir+json");
-    httpPost.setHeader(HttpHeaders.ACCEPT, "application/fhir+json");
-
-    HttpEntity entity = new StringEntity(measure.toString(), Consts.UTF_8);
-    httpPost.setEntity(entity);
+    String uri = getConfig().getNormalizedBaseUrl() + "Measure";
+    LdmRequest request = LdmRequest.post(uri, measure.toString())
+        .defaultHeaders(getConfig().getHttpHeaders())
+        .header(HttpHeaders.CONTENT_TYPE, "application/fhir+json")
+        .header(HttpHeaders.ACCEPT, "application/fhir+json");
 
-    try (CloseableHttpResponse response = getHttpClient().execute(httpPost)) {
-      int statusCode = response.getStatusLine().getStatusCode();
+    try {
+      LdmResponse response = execute(request);
+      int statusCode = response.getStatusCode();
       if (statusCode != HttpStatus.SC_CREATED) {
         logger.error(String.format("Measure not created. Status code: %d, Response: %s",
-            statusCode, EntityUtils.toString(response.getEntity(), Consts.UTF_8)));
+            statusCode, response.getBody()));
         throw new LdmClientException("Request not created. Received status code " + statusCode);
       }
 
-      Header locationHeader = response.getFirstHeader("Location");
+      String locationHeader = response.getFirstHeader(HttpHeaders.LOCATION);
       if (locationHeader == null) {
         throw new LdmClientException("Location header is missing");
       }
 
-      String measureUrl = resourceLocation(locationHeader.getValue());
+      String measureUrl = resourceLocation(locationHeader);
       if (measureUrl.equals("")) {
         throw new LdmClientException("Location header is empty");
       }
@@ -135,7 +250,8 @@ public abstract class LdmClientCqlQuery<
   private JsonObject createLibrary(String url, String query) {
     JsonObject library = loadLibraryStub();
     library.addProperty("url", url);
-    String encodedQuery = Base64.getEncoder().encodeToString(query.getBytes());
+    String encodedQuery = Base64.getEncoder()
+        .encodeToString(query.getBytes(StandardCharsets.UTF_8));
     library.getAsJsonArray("content").get(0).getAsJsonObject().addProperty("data", encodedQuery);
     return library;
   }
@@ -145,4 +261,23 @@ public abstract class LdmClientCqlQuery<
     measure.getAsJsonArray("library").add(libraryUrl);
     return measure;
   }
+
+  private JsonObject createBatchMeasure(String libraryUrl, String entityType, int size) {
+    JsonObject measure = createMeasure(libraryUrl, entityType);
+    JsonObject groupStub = measure.getAsJsonArray("group").get(0).getAsJsonObject();
+    JsonArray groups = new JsonArray();
+    for (int i = 0; i < size; i++) {
+      JsonObject group = groupStub.deepCopy();
+      JsonObject code = new JsonObject();
+      code.addProperty("text", CqlQueryBatch.getExpressionName(i));
+      group.add("code", code);
+      for (JsonElement population : group.getAsJsonArray("population")) {
+        population.getAsJsonObject().getAsJsonObject("criteria")
+            .addProperty("expression", CqlQueryBatch.getExpressionName(i));
+      }
+      groups.add(group);
+    }
+    measure.add("group", groups);
+    return measure;
+  }
 }
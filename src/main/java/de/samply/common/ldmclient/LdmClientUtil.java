@@ -19,7 +19,34 @@ public class LdmClientUtil {
     if (source == null) {
       return "";
     }
-    return source.replaceAll("/+$", "") + "/";
+    int end = endOfPath(source);
+    if (end == source.length() - 1) {
+      return source;
+    }
+    return source.substring(0, end) + "/";
+  }
+
+  /**
+   * Append a string to a builder, so that it ends with exactly one slash. Same as {@link
+   * #addTrailingSlash(String)}, but without creating an intermediate string.
+   *
+   * @param builder the builder to append to
+   * @param source  the source string
+   * @return the builder
+   */
+  static StringBuilder appendWithTrailingSlash(StringBuilder builder, String source) {
+    if (source != null) {
+      builder.append(source, 0, endOfPath(source));
+    }
+    return builder.append('/');
+  }
+
+  private static int endOfPath(String source) {
+    int end = source.length();
+    while (end > 0 && source.charAt(end - 1) == '/') {
+      end--;
+    }
+    return end;
   }
 
   public static boolean isNullOrEmpty(final String s) {
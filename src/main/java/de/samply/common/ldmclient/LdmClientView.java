@@ -3,8 +3,19 @@ package de.samply.common.ldmclient;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
+import de.samply.common.ldmclient.aggregation.AggregationResult;
+import de.samply.common.ldmclient.aggregation.AggregationSpec;
+import de.samply.common.ldmclient.aggregation.PageAggregator;
+import de.samply.common.ldmclient.cache.RemoteResultCache;
+import de.samply.common.ldmclient.model.CompactResultPage;
 import de.samply.common.ldmclient.model.LdmQueryResult;
 import de.samply.common.ldmclient.model.QueryResultPageKey;
+import de.samply.common.ldmclient.transport.ApacheLdmTransport;
+import de.samply.common.ldmclient.transport.Http2LdmTransport;
+import de.samply.common.ldmclient.transport.LdmRequest;
+import de.samply.common.ldmclient.transport.LdmResponse;
+import de.samply.common.ldmclient.transport.LdmTransport;
+import de.samply.common.ldmclient.transport.RequestPriority;
 import de.samply.share.model.common.QueryResultStatistic;
 import de.samply.share.model.common.Result;
 import de.samply.share.model.common.View;
@@ -12,27 +23,20 @@ import de.samply.share.utils.QueryConverter;
 import java.io.IOException;
 import java.io.Serializable;
 import java.io.StringReader;
-import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
 import javax.xml.bind.Unmarshaller;
-import org.apache.http.Consts;
-import org.apache.http.Header;
-import org.apache.http.HttpEntity;
 import org.apache.http.HttpHeaders;
 import org.apache.http.HttpStatus;
-import org.apache.http.client.config.RequestConfig;
-import org.apache.http.client.methods.CloseableHttpResponse;
-import org.apache.http.client.methods.HttpGet;
-import org.apache.http.client.methods.HttpHead;
-import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.methods.HttpRequestBase;
 import org.apache.http.entity.ContentType;
-import org.apache.http.entity.StringEntity;
 import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.util.EntityUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -47,12 +51,11 @@ public abstract class LdmClientView<
     AbstractLdmClient<T_RESULT, ResultStatisticsT, ErrorT> {
 
   protected static final int CACHE_DEFAULT_SIZE = 1000;
+  protected static final int AGGREGATION_DEFAULT_PARALLELISM = 4;
   private static final Logger logger = LoggerFactory.getLogger(LdmClientView.class);
-  private final int cacheSize;
-  private LdmClientView<T_RESULT, ResultStatisticsT, ErrorT, SpecificViewT>
+  private static final Map<Class<?>, JAXBContext> jaxbContexts = new ConcurrentHashMap<>();
+  private final LdmClientView<T_RESULT, ResultStatisticsT, ErrorT, SpecificViewT>
       .QueryResultsCacheManager cacheManager;
-  private boolean useCaching;
-  private Map<String, String> httpHeaders = new HashMap<>();
 
   /**
    * Create an LdmClientView.
@@ -65,15 +68,41 @@ public abstract class LdmClientView<
    */
   public LdmClientView(CloseableHttpClient httpClient, String ldmBaseUrl, boolean useCaching,
       int cacheSize) throws LdmClientException {
-    super(httpClient, ldmBaseUrl);
-    if (httpClient == null) {
+    this(httpClient, LdmClientConfig.builder(ldmBaseUrl)
+        .useCaching(useCaching)
+        .cacheSize(cacheSize)
+        .build());
+  }
+
+  /**
+   * Create an LdmClientView from an immutable configuration.
+   *
+   * @param httpClient the httpClient e.g. with proxy settings
+   * @param config     the configuration (base url, caching, http headers, timeouts)
+   * @throws LdmClientException if httpclient or ldmBaseUrl is null
+   */
+  public LdmClientView(CloseableHttpClient httpClient, LdmClientConfig config)
+      throws LdmClientException {
+    this(httpClient == null ? null : new ApacheLdmTransport(httpClient), config);
+  }
+
+  /**
+   * Create an LdmClientView that uses the given transport, e.g. {@link Http2LdmTransport}.
+   *
+   * @param transport the transport to execute http requests with
+   * @param config    the configuration (base url, caching, http headers, timeouts)
+   * @throws LdmClientException if transport or ldmBaseUrl is null
+   */
+  public LdmClientView(LdmTransport transport, LdmClientConfig config)
+      throws LdmClientException {
+    super(transport, config);
+    if (transport == null) {
       throw new LdmClientException("No httpclient set");
     }
-    if (LdmClientUtil.isNullOrEmpty(ldmBaseUrl)) {
+    if (config == null || LdmClientUtil.isNullOrEmpty(config.getLdmBaseUrl())) {
       throw new LdmClientException("No LDM base URL provided");
     }
-    this.useCaching = useCaching;
-    this.cacheSize = cacheSize;
+    this.cacheManager = new QueryResultsCacheManager(config);
   }
 
   public boolean isLdmCentraxx() {
@@ -102,11 +131,51 @@ public abstract class LdmClientView<
   protected abstract LdmQueryResult convertSpecificErrorToCommonError(ErrorT error)
       throws JAXBException;
 
-  private QueryResultsCacheManager getCacheManager() {
-    if (this.cacheManager == null) {
-      this.cacheManager = new LdmClientView<T_RESULT, ResultStatisticsT, ErrorT, SpecificViewT>
-          .QueryResultsCacheManager();
+  /**
+   * Get the compactor that converts result pages from and to their compact representation. If
+   * compact caching is enabled in the configuration, cached pages are kept compact and rebuilt on
+   * demand.
+   *
+   * @return the compactor or null if not supported by this LDM
+   */
+  protected ResultPageCompactor<T_RESULT> getResultPageCompactor() {
+    return null;
+  }
+
+  /**
+   * Get the (thread-safe) JAXB context for a class. Contexts are expensive to create, so they are
+   * created once and shared by all clients.
+   *
+   * @param type the class to be bound
+   * @return the context
+   * @throws JAXBException if the context can not be created
+   */
+  protected static JAXBContext getJaxbContext(Class<?> type) throws JAXBException {
+    JAXBContext jaxbContext = jaxbContexts.get(type);
+    if (jaxbContext == null) {
+      jaxbContext = JAXBContext.newInstance(type);
+      JAXBContext existing = jaxbContexts.putIfAbsent(type, jaxbContext);
+      if (existing != null) {
+        jaxbContext = existing;
+      }
     }
+    return jaxbContext;
+  }
+
+  @Override
+  protected void initializeEagerly() throws LdmClientException {
+    super.initializeEagerly();
+    try {
+      getJaxbContext(getSpecificViewClass());
+      getJaxbContext(getObjectFactoryClassForResult());
+      getJaxbContext(getStatisticsClass());
+      getJaxbContext(getErrorClass());
+    } catch (JAXBException e) {
+      throw new LdmClientException(e);
+    }
+  }
+
+  private QueryResultsCacheManager getCacheManager() {
     return this.cacheManager;
   }
 
@@ -140,31 +209,28 @@ public abstract class LdmClientView<
     try {
       SpecificViewT specificView = convertCommonViewToSpecificView(view);
       viewString = QueryConverter
-          .marshal(specificView, JAXBContext.newInstance(getSpecificViewClass()));
+          .marshal(specificView, getJaxbContext(getSpecificViewClass()));
     } catch (JAXBException e) {
       throw new LdmClientException(e);
     }
 
     String uri = getFullPath(statisticsOnly);
-    HttpPost httpPost = new HttpPost(uri);
-    addHttpHeaders(httpPost);
-    HttpEntity entity = new StringEntity(viewString, Consts.UTF_8);
-    httpPost.setHeader(HttpHeaders.CONTENT_TYPE, ContentType.APPLICATION_XML.getMimeType());
-    httpPost.setHeader(HttpHeaders.ACCEPT, ContentType.APPLICATION_XML.getMimeType());
-    httpPost.setEntity(entity);
+    LdmRequest request = LdmRequest.post(uri, viewString)
+        .defaultHeaders(getConfig().getHttpHeaders())
+        .header(HttpHeaders.CONTENT_TYPE, ContentType.APPLICATION_XML.getMimeType())
+        .header(HttpHeaders.ACCEPT, ContentType.APPLICATION_XML.getMimeType());
 
     int statusCode;
-    try (CloseableHttpResponse response = getHttpClient().execute(httpPost)) {
-      statusCode = response.getStatusLine().getStatusCode();
+    try {
+      LdmResponse response = execute(request);
+      statusCode = response.getStatusCode();
 
-      Header locationHeader = response.getFirstHeader(HttpHeaders.LOCATION);
-      if (locationHeader == null) {
+      location = response.getFirstHeader(HttpHeaders.LOCATION);
+      if (location == null) {
         final String noLocationMsg = "No location found in Header";
         logger.error(noLocationMsg);
         throw new LdmClientException(noLocationMsg);
       }
-
-      location = locationHeader.getValue();
     } catch (IOException e) {
       throw new LdmClientException(e);
     }
@@ -188,18 +254,53 @@ public abstract class LdmClientView<
    */
   public T_RESULT getResultPage(String location, int page)
       throws LdmClientException, IndexOutOfBoundsException {
-    if (useCaching) {
+    if (getConfig().isUseCaching()) {
       try {
-        return getCacheManager().getCache().get(new QueryResultPageKey(location, page));
+        return getCacheManager().getResultPage(new QueryResultPageKey(location, page));
       } catch (ExecutionException e) {
         logger.warn("Error when trying to use cache. Querying LDM Client directly.", e);
         return getResultPageWithoutCache(location, page);
       }
     } else {
-      return getResultPageWithoutCache(location, page);
+      return loadResultPage(location, page, false).getResultPage();
     }
   }
 
+  /**
+   * Load a result page, from the remote cache if configured or from LDM Client otherwise. Pages
+   * loaded from LDM Client are written to the remote cache.
+   *
+   * @param location the location of the result
+   * @param page     the page index
+   * @param compact  true to keep the page compact, e.g. for the near cache; pages are only
+   *                 compacted if a compactor is set
+   * @return the page, compact if requested and possible
+   */
+  private CachedResultPage loadResultPage(String location, int page, boolean compact)
+      throws LdmClientException {
+    ResultPageCompactor<T_RESULT> compactor = getResultPageCompactor();
+    RemoteResultCache remoteCache = compactor == null ? null : getConfig().getRemoteCache();
+    boolean keepCompact = compactor != null && compact;
+
+    if (remoteCache != null) {
+      CompactResultPage compactPage = remoteCache.getPage(location, page);
+      if (compactPage != null) {
+        return keepCompact ? new CachedResultPage(compactPage)
+            : new CachedResultPage(compactor.expand(compactPage));
+      }
+    }
+
+    T_RESULT resultPage = getResultPageWithoutCache(location, page);
+    if (remoteCache == null && !keepCompact) {
+      return new CachedResultPage(resultPage);
+    }
+    CompactResultPage compactPage = compactor.compact(resultPage);
+    if (remoteCache != null) {
+      remoteCache.putPage(location, page, compactPage);
+    }
+    return keepCompact ? new CachedResultPage(compactPage) : new CachedResultPage(resultPage);
+  }
+
   /**
    * Get a single page of a query result from LDM Client.
    *
@@ -226,27 +327,56 @@ public abstract class LdmClientView<
       throw new LdmClientException("No QueryResultStatistics found at stats location.");
     }
 
-    HttpGet httpGet = new HttpGet(
-        LdmClientUtil.addTrailingSlash(location) + REST_PATH_RESULT + REST_PARAM_PAGE + page);
-    addHttpHeaders(httpGet);
+    return fetchResultPage(location, page);
+  }
 
-    if (isLdmCentraxx()) {
-      // Apparently, it may take a bit longer to reply when a new user session has to be created...
-      // so use an extensive timeout of 1 minute
-      RequestConfig requestConfig = RequestConfig.custom().setSocketTimeout(60000)
-          .setConnectTimeout(60000).setConnectionRequestTimeout(60000).build();
-      httpGet.setConfig(requestConfig);
+  /**
+   * Get a result page in its compact representation, from the local or the shared cache if
+   * present. A page fetched from LDM Client is written to the shared cache only.
+   *
+   * @param location  the location of the result
+   * @param page      the page index
+   * @param compactor the compactor of this client
+   * @return the compact page
+   */
+  private CompactResultPage getCompactResultPage(String location, int page,
+      ResultPageCompactor<T_RESULT> compactor) throws LdmClientException {
+    if (getConfig().isUseCaching()) {
+      CachedResultPage cachedPage = getCacheManager()
+          .getCachedResultPage(new QueryResultPageKey(location, page));
+      if (cachedPage != null) {
+        return cachedPage.compactPage != null ? cachedPage.compactPage
+            : compactor.compact(cachedPage.resultPage);
+      }
     }
 
+    RemoteResultCache remoteCache = getConfig().getRemoteCache();
+    CompactResultPage compactPage = remoteCache == null ? null
+        : remoteCache.getPage(location, page);
+    if (compactPage == null) {
+      compactPage = compactor.compact(fetchResultPage(location, page));
+      if (remoteCache != null) {
+        remoteCache.putPage(location, page, compactPage);
+      }
+    }
+    return compactPage;
+  }
+
+  /**
+   * Get a single page of a query result from LDM Client, without checking the number of pages.
+   *
+   * @param location the location of the result
+   * @param page     the page index
+   * @return the partial query result
+   */
+  private T_RESULT fetchResultPage(String location, int page) throws LdmClientException {
     try {
-      CloseableHttpResponse response = getHttpClient().execute(httpGet);
-      int statusCode = response.getStatusLine().getStatusCode();
-      HttpEntity entity = response.getEntity();
-      String queryResultString = EntityUtils.toString(entity, Consts.UTF_8);
-      EntityUtils.consume(entity);
+      LdmResponse response = execute(
+          createGetRequest(getResultPagePath(location, page), RequestPriority.BULK));
+      int statusCode = response.getStatusCode();
       if (HttpStatus.SC_OK == statusCode) {
-        return QueryConverter.unmarshal(queryResultString,
-            JAXBContext.newInstance(getObjectFactoryClassForResult()), getResultClass());
+        return QueryConverter.unmarshal(response.getBody(),
+            getJaxbContext(getObjectFactoryClassForResult()), getResultClass());
       } else {
         throw new LdmClientException(
             "While trying to get Result page " + page + " statuscode " + statusCode
@@ -257,6 +387,55 @@ public abstract class LdmClientView<
     }
   }
 
+  /**
+   * Compute counts over all pages of the result at the given location.
+   *
+   * @param location the location of the result
+   * @param specs    the aggregations to compute
+   * @return the combined counts
+   * @throws LdmClientException if the result could not be read or this LDM does not provide a
+   *                            {@link ResultPageCompactor}
+   */
+  public AggregationResult aggregate(String location, List<AggregationSpec> specs)
+      throws LdmClientException {
+    return aggregate(location, specs, AGGREGATION_DEFAULT_PARALLELISM);
+  }
+
+  /**
+   * Compute counts over all pages of the result at the given location. Pages are read and reduced
+   * in parallel. Pages in the local or shared cache are used as they are; other pages are fetched
+   * from LDM Client and written to the shared cache, but not to the local one.
+   *
+   * @param location    the location of the result
+   * @param specs       the aggregations to compute, with unique names
+   * @param parallelism the maximum number of pages that are fetched at the same time
+   * @return the combined counts
+   * @throws LdmClientException if the result could not be read or this LDM does not provide a
+   *                            {@link ResultPageCompactor}
+   * @throws IllegalArgumentException if two specs have the same name
+   */
+  public AggregationResult aggregate(String location, List<AggregationSpec> specs,
+      int parallelism) throws LdmClientException {
+    PageAggregator.checkSpecs(specs);
+    ResultPageCompactor<T_RESULT> compactor = getResultPageCompactor();
+    if (compactor == null) {
+      throw new LdmClientException("Aggregation is not supported by this LDM client.");
+    }
+    int numberOfPages = getQueryResultStatistic(location).getNumberOfPages();
+    if (numberOfPages == 0) {
+      return AggregationResult.empty();
+    }
+
+    ForkJoinPool pool = new ForkJoinPool(parallelism);
+    try {
+      return pool.invoke(new AggregationTask(location, specs, compactor, 0, numberOfPages));
+    } catch (AggregationException e) {
+      throw e.getCause();
+    } finally {
+      pool.shutdown();
+    }
+  }
+
   /**
    * Get the object that is found at the given location under the resource /stats.
    *
@@ -265,44 +444,49 @@ public abstract class LdmClientView<
    *        otherwise
    */
   public LdmQueryResult getStatsOrError(String location) throws LdmClientException {
-    HttpGet httpGet = new HttpGet(LdmClientUtil.addTrailingSlash(location) + REST_PATH_STATS);
-    addHttpHeaders(httpGet);
-
-    if (isLdmCentraxx()) {
-      // Apparently, it may take a bit longer to reply when a new user session has to be created...
-      // so use an extensive timeout of 1 minute
-      RequestConfig requestConfig = RequestConfig.custom().setSocketTimeout(60000)
-          .setConnectTimeout(60000).setConnectionRequestTimeout(60000).build();
-      httpGet.setConfig(requestConfig);
-    }
+    return getStatsOrError(location, RequestPriority.POLLING);
+  }
 
+  /**
+   * Get the object that is found at the given location under the resource /stats, with the given
+   * priority for the {@link de.samply.common.ldmclient.transport.SchedulingLdmTransport}. Use
+   * {@link RequestPriority#INTERACTIVE} if a user is waiting for the count.
+   *
+   * @param location The location (URL) where the statistics or error can be found
+   * @param priority the priority of the request
+   * @return the query result statistics file if the request could be processed, an error object
+   *        otherwise
+   */
+  public LdmQueryResult getStatsOrError(String location, RequestPriority priority)
+      throws LdmClientException {
+    RemoteResultCache remoteCache = getConfig().getRemoteCache();
     try {
-      CloseableHttpResponse response = getHttpClient().execute(httpGet);
-      int statusCode = response.getStatusLine().getStatusCode();
-      HttpEntity entity = response.getEntity();
-      String entityOutput = EntityUtils.toString(entity, Consts.UTF_8);
+      LdmResponse response = remoteCache == null ? null : remoteCache.getStats(location);
+      if (response == null) {
+        response = execute(createGetRequest(getStatsPath(location), priority));
+        if (remoteCache != null && (response.getStatusCode() == HttpStatus.SC_OK
+            || response.getStatusCode() == HttpStatus.SC_UNPROCESSABLE_ENTITY)) {
+          remoteCache.putStats(location, response.getStatusCode(), response.getBody());
+        }
+      }
+      int statusCode = response.getStatusCode();
+      String entityOutput = response.getBody();
       if (statusCode == HttpStatus.SC_OK) {
-        JAXBContext jaxbContext = JAXBContext.newInstance(getStatisticsClass());
+        JAXBContext jaxbContext = getJaxbContext(getStatisticsClass());
         Unmarshaller jaxbUnmarshaller = jaxbContext.createUnmarshaller();
         ResultStatisticsT qrs = (ResultStatisticsT) jaxbUnmarshaller
             .unmarshal(new StringReader(entityOutput));
-        EntityUtils.consume(entity);
-        response.close();
         return convertQueryResultStatisticToCommonQueryResultStatistic(qrs);
       } else if (statusCode == HttpStatus.SC_UNPROCESSABLE_ENTITY) {
-        JAXBContext jaxbContext = JAXBContext.newInstance(getErrorClass());
+        JAXBContext jaxbContext = getJaxbContext(getErrorClass());
         Unmarshaller jaxbUnmarshaller = jaxbContext.createUnmarshaller();
         ErrorT error = (ErrorT) jaxbUnmarshaller.unmarshal(new StringReader(entityOutput));
-        EntityUtils.consume(entity);
-        response.close();
         return convertSpecificErrorToCommonError(error);
       } else if (statusCode == HttpStatus.SC_ACCEPTED) {
-        response.close();
         logger
             .debug("Statistics not written yet. LDM client is probably busy with another request.");
         return LdmQueryResult.EMPTY;
       } else {
-        response.close();
         throw new LdmClientException("Unexpected response code: " + statusCode);
       }
     } catch (IOException | JAXBException e) {
@@ -323,87 +507,196 @@ public abstract class LdmClientView<
       return false;
     }
 
-    HttpHead httpHead = new HttpHead(
-        LdmClientUtil.addTrailingSlash(location) + REST_PATH_RESULT + REST_PARAM_PAGE + pageIndex);
-    addHttpHeaders(httpHead);
-
-    if (isLdmCentraxx()) {
-      // Apparently, it may take a bit longer to reply when a new user session has to be created...
-      // so use an extensive timeout of 1 minute
-      RequestConfig requestConfig = RequestConfig.custom().setSocketTimeout(60000)
-          .setConnectTimeout(60000).setConnectionRequestTimeout(60000).build();
-      httpHead.setConfig(requestConfig);
-    }
-
+    LdmRequest request = withTimeout(LdmRequest.head(getResultPagePath(location, pageIndex))
+        .defaultHeaders(getConfig().getHttpHeaders())
+        .priority(RequestPriority.POLLING));
     try {
-      CloseableHttpResponse response = getHttpClient().execute(httpHead);
-      int statusCode = response.getStatusLine().getStatusCode();
-      return HttpStatus.SC_OK == statusCode;
+      return HttpStatus.SC_OK == execute(request).getStatusCode();
     } catch (IOException e) {
       return false;
     }
   }
 
-  private int getCacheSize() {
-    return cacheSize;
+  /**
+   * Create a GET request with the configured http headers and, for CentraXX, the extended
+   * timeout.
+   *
+   * @param uri      the uri to get
+   * @param priority the priority class of the request
+   * @return the request, to be executed with {@link #execute(LdmRequest)}
+   */
+  @Override
+  protected LdmRequest createGetRequest(String uri, RequestPriority priority) {
+    return withTimeout(super.createGetRequest(uri, priority));
+  }
+
+  private LdmRequest withTimeout(LdmRequest request) {
+    if (isLdmCentraxx()) {
+      // Apparently, it may take a bit longer to reply when a new user session has to be created...
+      // so use an extensive timeout (1 minute by default)
+      request.timeout(getConfig().getExtendedTimeout());
+    }
+    return request;
   }
 
+  /**
+   * Clean the local cache of result pages. A shared remote cache is not affected.
+   */
   public void cleanQueryResultsCache() {
     getCacheManager().cleanCache();
   }
 
+  /**
+   * Add an http header that is sent with every request. The configuration is replaced
+   * (copy-on-write), so requests that are currently built by other threads are not affected.
+   *
+   * @param httpHeader the name of the header
+   * @param value      the value of the header
+   */
   public void addHttpHeader(String httpHeader, String value) {
-    this.httpHeaders.put(httpHeader, value);
+    updateConfig(config -> config.withHttpHeader(httpHeader, value));
   }
 
   /**
-   * ToDo.
+   * Set the configured http headers on the given request.
    *
-   * @param httpRequestBase ToDo.
+   * @param httpRequestBase the request
    */
   public void addHttpHeaders(HttpRequestBase httpRequestBase) {
+    for (Map.Entry<String, String> header : getConfig().getHttpHeaders().entrySet()) {
+      httpRequestBase.setHeader(header.getKey(), header.getValue());
+    }
+  }
 
-    for (String header : httpHeaders.keySet()) {
+  /**
+   * Fetches and reduces a range of result pages, splitting it in halves until single pages remain.
+   */
+  private class AggregationTask extends RecursiveTask<AggregationResult> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String location;
+    private final List<AggregationSpec> specs;
+    private final ResultPageCompactor<T_RESULT> compactor;
+    private final int fromPage;
+    private final int toPage;
+
+    AggregationTask(String location, List<AggregationSpec> specs,
+        ResultPageCompactor<T_RESULT> compactor, int fromPage, int toPage) {
+      this.location = location;
+      this.specs = specs;
+      this.compactor = compactor;
+      this.fromPage = fromPage;
+      this.toPage = toPage;
+    }
 
-      String value = httpHeaders.get(header);
-      httpRequestBase.setHeader(header, value);
+    @Override
+    protected AggregationResult compute() {
+      if (toPage - fromPage == 1) {
+        try {
+          return PageAggregator.aggregate(
+              getCompactResultPage(location, fromPage, compactor), specs);
+        } catch (LdmClientException e) {
+          throw new AggregationException(e);
+        }
+      }
+      int middle = (fromPage + toPage) >>> 1;
+      AggregationTask left = new AggregationTask(location, specs, compactor, fromPage, middle);
+      AggregationTask right = new AggregationTask(location, specs, compactor, middle, toPage);
+      left.fork();
+      AggregationResult rightResult = right.compute();
+      return left.join().merge(rightResult);
+    }
+  }
+
+  /**
+   * Carries an {@link LdmClientException} out of an {@link AggregationTask}.
+   */
+  private static class AggregationException extends RuntimeException {
 
+    private static final long serialVersionUID = 1L;
+
+    AggregationException(LdmClientException cause) {
+      super(cause);
     }
 
+    @Override
+    public synchronized LdmClientException getCause() {
+      return (LdmClientException) super.getCause();
+    }
   }
 
   private class QueryResultsCacheManager {
 
     private Logger logger = LoggerFactory.getLogger(LdmClientView.QueryResultsCacheManager.class);
 
-    private LoadingCache<QueryResultPageKey, T_RESULT> queryResultCache;
-
-    LoadingCache<QueryResultPageKey, T_RESULT> getCache() {
-      if (queryResultCache == null) {
-        logger.debug("query result cache is null...creating loader");
-        CacheLoader<QueryResultPageKey, T_RESULT> loader = new CacheLoader<QueryResultPageKey,
-            T_RESULT>() {
-          public T_RESULT load(final QueryResultPageKey resultPageKey) throws LdmClientException {
-            logger.debug(
-                "QueryResult page was not in cache: " + resultPageKey.getLocation() + " page "
-                    + resultPageKey.getPageIndex());
-            return getResultPageWithoutCache(resultPageKey.getLocation(),
-                resultPageKey.getPageIndex());
-          }
-        };
-        queryResultCache = CacheBuilder.newBuilder().maximumSize(getCacheSize()).build(loader);
+    private final LoadingCache<QueryResultPageKey, CachedResultPage> queryResultCache;
+
+    QueryResultsCacheManager(LdmClientConfig config) {
+      CacheLoader<QueryResultPageKey, CachedResultPage> loader = new CacheLoader<
+          QueryResultPageKey, CachedResultPage>() {
+        public CachedResultPage load(final QueryResultPageKey resultPageKey)
+            throws LdmClientException {
+          logger.debug(
+              "QueryResult page was not in cache: " + resultPageKey.getLocation() + " page "
+                  + resultPageKey.getPageIndex());
+          return loadResultPage(resultPageKey.getLocation(), resultPageKey.getPageIndex(),
+              getConfig().isCompactCaching());
+        }
+      };
+      int cacheSize = Math.max(0, config.getCacheSize());
+      if (config.isCompactCaching() && cacheSize > 0) {
+        // weigh by heap, so compact pages use the budget of cacheSize expanded pages
+        long expandedPageWeight = Math.max(1,
+            Math.min(Integer.MAX_VALUE, config.getCacheMaximumBytes() / cacheSize));
+        queryResultCache = CacheBuilder.newBuilder()
+            .maximumWeight(config.getCacheMaximumBytes())
+            .<QueryResultPageKey, CachedResultPage>weigher(
+                (key, page) -> page.compactPage == null ? (int) expandedPageWeight
+                    : (int) Math.min(Integer.MAX_VALUE, page.compactPage.estimateSizeInBytes()))
+            .build(loader);
+      } else {
+        queryResultCache = CacheBuilder.newBuilder().maximumSize(cacheSize).build(loader);
       }
+    }
+
+    T_RESULT getResultPage(QueryResultPageKey resultPageKey) throws ExecutionException {
+      return queryResultCache.get(resultPageKey).getResultPage();
+    }
 
-      return queryResultCache;
+    CachedResultPage getCachedResultPage(QueryResultPageKey resultPageKey) {
+      return queryResultCache.getIfPresent(resultPageKey);
     }
 
     void cleanCache() {
-      if (queryResultCache != null) {
-        queryResultCache.invalidateAll();
-        logger.debug("Cache cleaned.");
-      } else {
-        logger.debug("Cache was null. Nothing to do.");
+      queryResultCache.invalidateAll();
+      logger.debug("Cache cleaned.");
+    }
+  }
+
+  /**
+   * A (cached) result page, either as it was received or in its compact representation.
+   */
+  private final class CachedResultPage {
+
+    private final T_RESULT resultPage;
+    private final CompactResultPage compactPage;
+
+    CachedResultPage(T_RESULT resultPage) {
+      this.resultPage = resultPage;
+      this.compactPage = null;
+    }
+
+    CachedResultPage(CompactResultPage compactPage) {
+      this.resultPage = null;
+      this.compactPage = compactPage;
+    }
+
+    T_RESULT getResultPage() {
+      if (resultPage != null) {
+        return resultPage;
       }
+      return getResultPageCompactor().expand(compactPage);
     }
   }
 }
@@ -0,0 +1,28 @@
+package de.samply.common.ldmclient;
+
+import de.samply.common.ldmclient.model.CompactResultPage;
+import de.samply.share.model.common.Result;
+
+/**
+ * Converts result pages of a specific LDM from and to their compact representation.
+ *
+ * @param <T_RESULT> the result type of the LDM
+ */
+public interface ResultPageCompactor<T_RESULT extends Result> {
+
+  /**
+   * Convert a result page to its compact representation.
+   *
+   * @param resultPage the result page
+   * @return the compact page
+   */
+  CompactResultPage compact(T_RESULT resultPage);
+
+  /**
+   * Rebuild a result page from its compact representation.
+   *
+   * @param compactPage the compact page
+   * @return a new result page object
+   */
+  T_RESULT expand(CompactResultPage compactPage);
+}
@@ -0,0 +1,107 @@
+package de.samply.common.ldmclient;
+
+/**
+ * Result of warming up an LDM client, see {@link AbstractLdmClient#warmUp()}.
+ */
+public final class WarmUpReport {
+
+  private final String ldmBaseUrl;
+  private final boolean initialized;
+  private final long initializationMillis;
+  private final long dnsMillis;
+  private final long connectionMillis;
+  private final int connectionsRequested;
+  private final int connectionsOpened;
+  private final boolean ldmReady;
+  private final int statusCode;
+  private final Exception failure;
+
+  WarmUpReport(String ldmBaseUrl, boolean initialized, long initializationMillis, long dnsMillis,
+      long connectionMillis, int connectionsRequested, int connectionsOpened, boolean ldmReady,
+      int statusCode, Exception failure) {
+    this.ldmBaseUrl = ldmBaseUrl;
+    this.initialized = initialized;
+    this.initializationMillis = initializationMillis;
+    this.dnsMillis = dnsMillis;
+    this.connectionMillis = connectionMillis;
+    this.connectionsRequested = connectionsRequested;
+    this.connectionsOpened = connectionsOpened;
+    this.ldmReady = ldmReady;
+    this.statusCode = statusCode;
+    this.failure = failure;
+  }
+
+  public String getLdmBaseUrl() {
+    return ldmBaseUrl;
+  }
+
+  /**
+   * Check if the client is ready, i.e. it has been initialized and at least one warm-up request
+   * was answered with a status code that the client accepts, see {@link
+   * AbstractLdmClient#isReadyStatusCode(int)}.
+   *
+   * @return true if the client is ready
+   */
+  public boolean isReady() {
+    return initialized && ldmReady;
+  }
+
+  /**
+   * Get the time to create the JAXB contexts, load the model classes and parse the templates.
+   *
+   * @return the time in milliseconds
+   */
+  public long getInitializationMillis() {
+    return initializationMillis;
+  }
+
+  public long getDnsMillis() {
+    return dnsMillis;
+  }
+
+  public long getConnectionMillis() {
+    return connectionMillis;
+  }
+
+  public int getConnectionsRequested() {
+    return connectionsRequested;
+  }
+
+  /**
+   * Get the number of warm-up requests that were answered by the LDM, whatever the status code.
+   *
+   * @return the number of opened connections
+   */
+  public int getConnectionsOpened() {
+    return connectionsOpened;
+  }
+
+  /**
+   * Get the status code the LDM answered the warm-up requests with. If some of the requests were
+   * answered with a status code that the client does not accept, this is the first of them.
+   *
+   * @return the status code or 0 if no response was received
+   */
+  public int getStatusCode() {
+    return statusCode;
+  }
+
+  /**
+   * Get the first error that occurred while warming up. A client may be ready despite an error if
+   * some of the connections could be opened.
+   *
+   * @return the error or null if there was none
+   */
+  public Exception getFailure() {
+    return failure;
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "%s: ready=%b init=%dms dns=%dms connect=%dms connections=%d/%d status=%d%s",
+        ldmBaseUrl, isReady(), initializationMillis, dnsMillis, connectionMillis,
+        connectionsOpened, connectionsRequested, statusCode,
+        failure == null ? "" : " failure=" + failure);
+  }
+}
@@ -0,0 +1,109 @@
+package de.samply.common.ldmclient.aggregation;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Counts of one or more {@link AggregationSpec}s. Partial results of single pages can be merged.
+ * Instances are immutable.
+ */
+public final class AggregationResult {
+
+  private static final AggregationResult EMPTY = new AggregationResult(0, Collections.emptyMap(),
+      Collections.emptyMap());
+
+  private final int pages;
+  private final Map<String, Map<String, Long>> counts;
+  private final Map<String, Long> missing;
+
+  AggregationResult(int pages, Map<String, Map<String, Long>> counts, Map<String, Long> missing) {
+    this.pages = pages;
+    this.counts = counts;
+    this.missing = missing;
+  }
+
+  public static AggregationResult empty() {
+    return EMPTY;
+  }
+
+  /**
+   * Get the number of result pages that have been aggregated.
+   *
+   * @return the number of pages
+   */
+  public int getPages() {
+    return pages;
+  }
+
+  public Set<String> getNames() {
+    return Collections.unmodifiableSet(counts.keySet());
+  }
+
+  /**
+   * Get the counts of an aggregation.
+   *
+   * @param name the name of the aggregation spec
+   * @return the counts per value (or {@link AggregationSpec#TOTAL} for count specs)
+   */
+  public Map<String, Long> getCounts(String name) {
+    Map<String, Long> result = counts.get(name);
+    return result == null ? Collections.emptyMap() : Collections.unmodifiableMap(result);
+  }
+
+  /**
+   * Get the number of entities of a group-by spec that do not have a value for the MDR key. They
+   * are not part of {@link #getCounts(String)}.
+   *
+   * @param name the name of the aggregation spec
+   * @return the number of entities without value
+   */
+  public long getMissing(String name) {
+    return missing.getOrDefault(name, 0L);
+  }
+
+  /**
+   * Get the result of a count spec.
+   *
+   * @param name the name of the aggregation spec
+   * @return the number of counted entities
+   */
+  public long getTotal(String name) {
+    return getCounts(name).getOrDefault(AggregationSpec.TOTAL, 0L);
+  }
+
+  /**
+   * Merge two results into a new one.
+   *
+   * @param other the other result
+   * @return the merged result
+   */
+  public AggregationResult merge(AggregationResult other) {
+    if (other.pages == 0 && other.counts.isEmpty() && other.missing.isEmpty()) {
+      return this;
+    }
+    if (pages == 0 && counts.isEmpty() && missing.isEmpty()) {
+      return other;
+    }
+    Map<String, Map<String, Long>> merged = new HashMap<>(counts.size());
+    counts.forEach((name, values) -> merged.put(name, new HashMap<>(values)));
+    other.counts.forEach((name, values) -> {
+      Map<String, Long> target = merged.computeIfAbsent(name, k -> new HashMap<>());
+      values.forEach((value, count) -> target.merge(value, count, Long::sum));
+    });
+    Map<String, Long> mergedMissing = new HashMap<>(missing);
+    other.missing.forEach((name, count) -> mergedMissing.merge(name, count, Long::sum));
+    return new AggregationResult(pages + other.pages, merged, mergedMissing);
+  }
+
+  @Override
+  public String toString() {
+    return "AggregationResult{"
+        + "pages=" + pages
+        + ", counts=" + counts
+        + ", missing=" + missing
+        + '}';
+  }
+}
@@ -0,0 +1,132 @@
+package de.samply.common.ldmclient.aggregation;
+
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Declarative description of a count over the entities of a query result.
+ *
+ * <p>Either counts all entities ({@link #count(String)}) or counts entities grouped by the value
+ * of an MDR key ({@link #groupBy(String, String)}). Both can be restricted to one entity type.
+ */
+public final class AggregationSpec {
+
+  /**
+   * Group of a count spec.
+   */
+  public static final String TOTAL = "total";
+
+  private final String name;
+  private final String mdrKey;
+  private final String entityType;
+  private final Function<String, String> classifier;
+
+  private AggregationSpec(String name, String mdrKey, String entityType,
+      Function<String, String> classifier) {
+    this.name = Objects.requireNonNull(name, "name");
+    this.mdrKey = mdrKey;
+    this.entityType = entityType;
+    this.classifier = classifier;
+  }
+
+  /**
+   * Count all entities.
+   *
+   * @param name the name of the aggregation in the result
+   * @return the spec
+   */
+  public static AggregationSpec count(String name) {
+    return new AggregationSpec(name, null, null, null);
+  }
+
+  /**
+   * Count entities per value of an MDR key, e.g. per gender.
+   *
+   * @param name   the name of the aggregation in the result
+   * @param mdrKey the MDR key to group by
+   * @return the spec
+   */
+  public static AggregationSpec groupBy(String name, String mdrKey) {
+    return new AggregationSpec(name, Objects.requireNonNull(mdrKey, "mdrKey"), null, null);
+  }
+
+  /**
+   * Count entities per class of the value of an MDR key, e.g. per age class.
+   *
+   * @param name       the name of the aggregation in the result
+   * @param mdrKey     the MDR key to group by
+   * @param classifier maps a value to its class, must be stateless
+   * @return the spec
+   */
+  public static AggregationSpec groupBy(String name, String mdrKey,
+      Function<String, String> classifier) {
+    return new AggregationSpec(name, Objects.requireNonNull(mdrKey, "mdrKey"), null,
+        Objects.requireNonNull(classifier, "classifier"));
+  }
+
+  /**
+   * Classifier that maps integer values to classes of the given width, e.g. "30-39" for width 10.
+   * Values that are no integers are kept as they are.
+   *
+   * @param width the width of the classes
+   * @return the classifier
+   */
+  public static Function<String, String> numericClasses(int width) {
+    if (width <= 0) {
+      throw new IllegalArgumentException("Class width must be positive: " + width);
+    }
+    return value -> {
+      try {
+        int lower = Math.floorDiv(Integer.parseInt(value.trim()), width) * width;
+        return lower + "-" + (lower + width - 1);
+      } catch (NumberFormatException e) {
+        return value;
+      }
+    };
+  }
+
+  /**
+   * Restrict this spec to entities of the given type.
+   *
+   * @param entityType the entity type, e.g. "Patient"
+   * @return a new spec
+   */
+  public AggregationSpec forEntityType(String entityType) {
+    return new AggregationSpec(name, mdrKey, entityType, classifier);
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Get the MDR key to group by.
+   *
+   * @return the MDR key or null for a count spec
+   */
+  public String getMdrKey() {
+    return mdrKey;
+  }
+
+  /**
+   * Get the entity type this spec is restricted to.
+   *
+   * @return the entity type or null for all entities
+   */
+  public String getEntityType() {
+    return entityType;
+  }
+
+  String classify(String value) {
+    return classifier == null ? value : classifier.apply(value);
+  }
+
+  @Override
+  public String toString() {
+    return "AggregationSpec{"
+        + "name='" + name + '\''
+        + ", mdrKey='" + mdrKey + '\''
+        + ", entityType='" + entityType + '\''
+        + '}';
+  }
+}
@@ -0,0 +1,138 @@
+package de.samply.common.ldmclient.aggregation;
+
+import de.samply.common.ldmclient.model.CompactResultPage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reduces single result pages to partial {@link AggregationResult}s.
+ */
+public final class PageAggregator {
+
+  private PageAggregator() {
+
+  }
+
+  /**
+   * Check that the names of the specs are unique.
+   *
+   * @param specs the aggregations to compute
+   * @throws IllegalArgumentException if two specs have the same name
+   */
+  public static void checkSpecs(List<AggregationSpec> specs) {
+    Set<String> names = new HashSet<>();
+    for (AggregationSpec spec : specs) {
+      if (!names.add(spec.getName())) {
+        throw new IllegalArgumentException("Duplicate aggregation name: " + spec.getName());
+      }
+    }
+  }
+
+  /**
+   * Aggregate one result page. Entities that have several values for the MDR key of a group-by
+   * spec are counted once per class of these values.
+   *
+   * @param page  the result page
+   * @param specs the aggregations to compute, with unique names
+   * @return the partial result of this page
+   * @throws IllegalArgumentException if two specs have the same name
+   */
+  public static AggregationResult aggregate(CompactResultPage page, List<AggregationSpec> specs) {
+    checkSpecs(specs);
+    Map<String, Map<String, Long>> counts = new HashMap<>(specs.size() * 2);
+    Map<String, Long> missing = new HashMap<>();
+    for (AggregationSpec spec : specs) {
+      counts.put(spec.getName(), aggregate(page, spec, missing));
+    }
+    return new AggregationResult(1, counts, missing);
+  }
+
+  private static Map<String, Long> aggregate(CompactResultPage page, AggregationSpec spec,
+      Map<String, Long> missingBySpec) {
+    Map<String, Long> result = new HashMap<>();
+    int typeCode = CompactResultPage.NULL_VALUE;
+    if (spec.getEntityType() != null) {
+      typeCode = page.codeOf(spec.getEntityType());
+      if (typeCode == CompactResultPage.NULL_VALUE) {
+        // no entity of this type on this page
+        if (spec.getMdrKey() == null) {
+          result.put(AggregationSpec.TOTAL, 0L);
+        }
+        return result;
+      }
+    }
+
+    if (spec.getMdrKey() == null) {
+      long total = 0;
+      for (int entity = 0; entity < page.getEntityCount(); entity++) {
+        if (typeCode == CompactResultPage.NULL_VALUE
+            || page.getEntityTypeCode(entity) == typeCode) {
+          total++;
+        }
+      }
+      result.put(AggregationSpec.TOTAL, total);
+      return result;
+    }
+
+    int keyCode = page.codeOf(spec.getMdrKey());
+    int dictionarySize = page.getDictionarySize();
+    // every value is classified once per page; there are at most as many classes as values
+    int[] classOfValue = new int[dictionarySize];
+    Arrays.fill(classOfValue, -1);
+    List<String> classes = new ArrayList<>();
+    Map<String, Integer> classIndexes = new HashMap<>();
+    long[] countsByClass = new long[dictionarySize];
+    int[] lastEntityOfClass = new int[dictionarySize];
+    Arrays.fill(lastEntityOfClass, -1);
+    long missing = 0;
+    for (int entity = 0; entity < page.getEntityCount(); entity++) {
+      if (typeCode != CompactResultPage.NULL_VALUE && page.getEntityTypeCode(entity) != typeCode) {
+        continue;
+      }
+      boolean found = false;
+      if (keyCode != CompactResultPage.NULL_VALUE) {
+        int end = page.getAttributeEnd(entity);
+        for (int attribute = page.getAttributeStart(entity); attribute < end; attribute++) {
+          int valueCode = page.getValueCode(attribute);
+          if (page.getMdrKeyCode(attribute) != keyCode
+              || valueCode == CompactResultPage.NULL_VALUE) {
+            continue;
+          }
+          found = true;
+          int classIndex = classOfValue[valueCode];
+          if (classIndex < 0) {
+            String valueClass = spec.classify(page.lookup(valueCode));
+            classIndex = classIndexes.computeIfAbsent(valueClass, c -> {
+              classes.add(c);
+              return classes.size() - 1;
+            });
+            classOfValue[valueCode] = classIndex;
+          }
+          // several values of the same class count once per entity
+          if (lastEntityOfClass[classIndex] != entity) {
+            lastEntityOfClass[classIndex] = entity;
+            countsByClass[classIndex]++;
+          }
+        }
+      }
+      if (!found) {
+        missing++;
+      }
+    }
+
+    for (int classIndex = 0; classIndex < classes.size(); classIndex++) {
+      if (countsByClass[classIndex] > 0) {
+        result.put(classes.get(classIndex), countsByClass[classIndex]);
+      }
+    }
+    if (missing > 0) {
+      missingBySpec.put(spec.getName(), missing);
+    }
+    return result;
+  }
+}
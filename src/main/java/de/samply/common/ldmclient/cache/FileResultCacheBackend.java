@@ -0,0 +1,178 @@
+package de.samply.common.ldmclient.cache;
+
+import com.google.common.hash.Hashing;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link ResultCacheBackend} that stores one file per value in a directory. Several nodes can
+ * share the cache via a shared volume. Values are written to a temporary file first and then
+ * moved, so readers never see partially written values.
+ *
+ * <p>Values older than the maximum age are misses and deleted when they are read. Once the values
+ * written since the last clean-up may exceed the maximum size, or the maximum age has passed
+ * since the last clean-up, {@link #cleanUp()} deletes the expired values and then the oldest ones
+ * until three quarters of the maximum size are left. Values written by other nodes are counted by
+ * the next clean-up.
+ */
+public class FileResultCacheBackend implements ResultCacheBackend {
+
+  public static final long UNLIMITED = Long.MAX_VALUE;
+
+  private static final String SUFFIX = ".bin";
+  private static final String TEMP_SUFFIX = ".tmp";
+
+  private final Path directory;
+  private final long maximumBytes;
+  private final long maximumAgeMillis;
+  private final AtomicLong estimatedBytes = new AtomicLong();
+  private volatile long nextCleanUpMillis = Long.MAX_VALUE;
+
+  /**
+   * Create a file based backend without limits, e.g. for a directory that is cleaned up by an
+   * external job.
+   *
+   * @param directory the directory of the cache, created if it does not exist
+   * @throws IOException if the directory can not be created
+   */
+  public FileResultCacheBackend(Path directory) throws IOException {
+    this(directory, UNLIMITED, UNLIMITED);
+  }
+
+  /**
+   * Create a file based backend with a maximum size and age of the values. Existing values beyond
+   * these limits are deleted.
+   *
+   * @param directory        the directory of the cache, created if it does not exist
+   * @param maximumBytes     the maximum size of all values or {@link #UNLIMITED}
+   * @param maximumAgeMillis the maximum age of a value or {@link #UNLIMITED}
+   * @throws IOException if the directory can not be created or cleaned up
+   */
+  public FileResultCacheBackend(Path directory, long maximumBytes, long maximumAgeMillis)
+      throws IOException {
+    if (maximumBytes <= 0 || maximumAgeMillis <= 0) {
+      throw new IllegalArgumentException("Limits must be positive: " + maximumBytes + " bytes, "
+          + maximumAgeMillis + " ms");
+    }
+    this.directory = Files.createDirectories(directory);
+    this.maximumBytes = maximumBytes;
+    this.maximumAgeMillis = maximumAgeMillis;
+    if (maximumBytes != UNLIMITED || maximumAgeMillis != UNLIMITED) {
+      cleanUp();
+    }
+  }
+
+  @Override
+  public byte[] get(String key) throws IOException {
+    Path file = fileOf(key);
+    try {
+      if (maximumAgeMillis != UNLIMITED && isExpired(
+          Files.readAttributes(file, BasicFileAttributes.class), System.currentTimeMillis())) {
+        Files.deleteIfExists(file);
+        return null;
+      }
+      return Files.readAllBytes(file);
+    } catch (NoSuchFileException e) {
+      return null;
+    }
+  }
+
+  @Override
+  public void put(String key, byte[] value) throws IOException {
+    Path temp = Files.createTempFile(directory, null, TEMP_SUFFIX);
+    try {
+      Files.write(temp, value);
+      Files.move(temp, fileOf(key), StandardCopyOption.ATOMIC_MOVE,
+          StandardCopyOption.REPLACE_EXISTING);
+    } finally {
+      Files.deleteIfExists(temp);
+    }
+    if (estimatedBytes.addAndGet(value.length) > maximumBytes
+        || System.currentTimeMillis() >= nextCleanUpMillis) {
+      cleanUp();
+    }
+  }
+
+  @Override
+  public void invalidateAll() throws IOException {
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+      for (Path file : files) {
+        Files.deleteIfExists(file);
+      }
+    }
+    estimatedBytes.set(0);
+  }
+
+  /**
+   * Delete the expired values and, if the remaining ones exceed the maximum size, the oldest
+   * values until three quarters of the maximum size are left.
+   *
+   * @throws IOException if the directory can not be read or a file can not be deleted
+   */
+  public synchronized void cleanUp() throws IOException {
+    long now = System.currentTimeMillis();
+    List<CachedFile> cachedFiles = new ArrayList<>();
+    long bytes = 0;
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+      for (Path file : files) {
+        BasicFileAttributes attributes;
+        try {
+          attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+          // deleted by another node
+          continue;
+        }
+        if (isExpired(attributes, now)) {
+          Files.deleteIfExists(file);
+        } else {
+          cachedFiles.add(new CachedFile(file, attributes));
+          bytes += attributes.size();
+        }
+      }
+    }
+
+    if (bytes > maximumBytes) {
+      cachedFiles.sort(Comparator.comparingLong(cachedFile -> cachedFile.lastModified));
+      long target = maximumBytes - maximumBytes / 4;
+      for (int i = 0; i < cachedFiles.size() && bytes > target; i++) {
+        Files.deleteIfExists(cachedFiles.get(i).file);
+        bytes -= cachedFiles.get(i).size;
+      }
+    }
+    estimatedBytes.set(bytes);
+    nextCleanUpMillis = maximumAgeMillis == UNLIMITED ? Long.MAX_VALUE : now + maximumAgeMillis;
+  }
+
+  private boolean isExpired(BasicFileAttributes attributes, long now) {
+    return maximumAgeMillis != UNLIMITED
+        && now - attributes.lastModifiedTime().toMillis() >= maximumAgeMillis;
+  }
+
+  private Path fileOf(String key) {
+    return directory.resolve(
+        Hashing.sha256().hashString(key, StandardCharsets.UTF_8).toString() + SUFFIX);
+  }
+
+  private static final class CachedFile {
+
+    private final Path file;
+    private final long size;
+    private final long lastModified;
+
+    private CachedFile(Path file, BasicFileAttributes attributes) {
+      this.file = file;
+      this.size = attributes.size();
+      this.lastModified = attributes.lastModifiedTime().toMillis();
+    }
+  }
+}
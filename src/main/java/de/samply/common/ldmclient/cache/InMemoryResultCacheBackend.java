@@ -0,0 +1,40 @@
+package de.samply.common.ldmclient.cache;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * In-process {@link ResultCacheBackend}, bounded by the total size of the stored values. Shared by
+ * all clients of one process, e.g. for tests or for several clients of the same LDM.
+ */
+public class InMemoryResultCacheBackend implements ResultCacheBackend {
+
+  private final Cache<String, byte[]> cache;
+
+  /**
+   * Create an in-memory backend.
+   *
+   * @param maximumBytes the maximum total size of all values
+   */
+  public InMemoryResultCacheBackend(long maximumBytes) {
+    this.cache = CacheBuilder.newBuilder()
+        .maximumWeight(maximumBytes)
+        .weigher((String key, byte[] value) -> 2 * key.length() + value.length)
+        .build();
+  }
+
+  @Override
+  public byte[] get(String key) {
+    return cache.getIfPresent(key);
+  }
+
+  @Override
+  public void put(String key, byte[] value) {
+    cache.put(key, value);
+  }
+
+  @Override
+  public void invalidateAll() {
+    cache.invalidateAll();
+  }
+}
@@ -0,0 +1,191 @@
+package de.samply.common.ldmclient.cache;
+
+import de.samply.common.ldmclient.model.CompactResultPage;
+import de.samply.common.ldmclient.model.CompactResultPageCodec;
+import de.samply.common.ldmclient.transport.LdmResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.function.LongSupplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reads and writes result pages and statistics from and to a {@link ResultCacheBackend}.
+ *
+ * <p>Failures of the backend are logged and treated as cache misses, so an unavailable cache
+ * never fails a query. Every value starts with the time it was written; values older than the
+ * expiry are misses as well, e.g. if an LDM reuses the ids of its requests after a reset.
+ */
+public class RemoteResultCache {
+
+  private static final Logger logger = LoggerFactory.getLogger(RemoteResultCache.class);
+
+  private static final String KEY_PREFIX_PAGE = "page|";
+  private static final String KEY_PREFIX_STATS = "stats|";
+  private static final byte FORMAT_VERSION = 2;
+  // format version and write time
+  private static final int HEADER_LENGTH = 9;
+
+  private final ResultCacheBackend backend;
+  private final long expireAfterWriteMillis;
+  private final LongSupplier clock;
+
+  public RemoteResultCache(ResultCacheBackend backend) {
+    this(backend, 0);
+  }
+
+  /**
+   * Create a cache whose values expire.
+   *
+   * @param backend                the backend
+   * @param expireAfterWriteMillis the time after which values are no longer read, 0 for never
+   */
+  public RemoteResultCache(ResultCacheBackend backend, long expireAfterWriteMillis) {
+    this(backend, expireAfterWriteMillis, System::currentTimeMillis);
+  }
+
+  RemoteResultCache(ResultCacheBackend backend, long expireAfterWriteMillis, LongSupplier clock) {
+    if (expireAfterWriteMillis < 0) {
+      throw new IllegalArgumentException("Negative expiry: " + expireAfterWriteMillis);
+    }
+    this.backend = backend;
+    this.expireAfterWriteMillis = expireAfterWriteMillis;
+    this.clock = clock;
+  }
+
+  public ResultCacheBackend getBackend() {
+    return backend;
+  }
+
+  public long getExpireAfterWriteMillis() {
+    return expireAfterWriteMillis;
+  }
+
+  /**
+   * Get a result page.
+   *
+   * @param location  the location of the result
+   * @param pageIndex the index of the page
+   * @return the page or null if not cached
+   */
+  public CompactResultPage getPage(String location, int pageIndex) {
+    String key = KEY_PREFIX_PAGE + location + '|' + pageIndex;
+    try {
+      byte[] bytes = read(key);
+      return bytes == null ? null : CompactResultPageCodec.decode(bytes, HEADER_LENGTH);
+    } catch (IOException | RuntimeException e) {
+      // a corrupt or incompatible value must never fail a query
+      logger.warn("Could not read result page from remote cache: " + key, e);
+      return null;
+    }
+  }
+
+  /**
+   * Put a result page.
+   *
+   * @param location  the location of the result
+   * @param pageIndex the index of the page
+   * @param page      the page
+   */
+  public void putPage(String location, int pageIndex, CompactResultPage page) {
+    String key = KEY_PREFIX_PAGE + location + '|' + pageIndex;
+    try {
+      byte[] pageBytes = CompactResultPageCodec.encode(page);
+      byte[] bytes = newValue(pageBytes.length);
+      System.arraycopy(pageBytes, 0, bytes, HEADER_LENGTH, pageBytes.length);
+      backend.put(key, bytes);
+    } catch (IOException | RuntimeException e) {
+      logger.warn("Could not write result page to remote cache: " + key, e);
+    }
+  }
+
+  /**
+   * Get the final response of the stats resource of a result.
+   *
+   * @param location the location of the result
+   * @return the response (status code and body) or null if not cached
+   */
+  public LdmResponse getStats(String location) {
+    String key = KEY_PREFIX_STATS + location;
+    try {
+      byte[] bytes = read(key);
+      if (bytes == null) {
+        return null;
+      }
+      if (bytes.length < HEADER_LENGTH + 2) {
+        logger.warn("Ignoring malformed stats in remote cache: " + key);
+        return null;
+      }
+      int statusCode = ((bytes[HEADER_LENGTH] & 0xFF) << 8) | (bytes[HEADER_LENGTH + 1] & 0xFF);
+      return new LdmResponse(statusCode, new String(bytes, HEADER_LENGTH + 2,
+          bytes.length - HEADER_LENGTH - 2, StandardCharsets.UTF_8));
+    } catch (IOException | RuntimeException e) {
+      logger.warn("Could not read stats from remote cache: " + key, e);
+      return null;
+    }
+  }
+
+  /**
+   * Put the final response of the stats resource of a result. Only final responses (statistics or
+   * error) may be cached, never "busy".
+   *
+   * @param location   the location of the result
+   * @param statusCode the status code of the response
+   * @param body       the body of the response
+   */
+  public void putStats(String location, int statusCode, String body) {
+    String key = KEY_PREFIX_STATS + location;
+    byte[] bodyBytes = body == null ? new byte[0] : body.getBytes(StandardCharsets.UTF_8);
+    byte[] bytes = newValue(bodyBytes.length + 2);
+    bytes[HEADER_LENGTH] = (byte) (statusCode >>> 8);
+    bytes[HEADER_LENGTH + 1] = (byte) statusCode;
+    System.arraycopy(bodyBytes, 0, bytes, HEADER_LENGTH + 2, bodyBytes.length);
+    try {
+      backend.put(key, bytes);
+    } catch (IOException | RuntimeException e) {
+      logger.warn("Could not write stats to remote cache: " + key, e);
+    }
+  }
+
+  /**
+   * Read a value of the current format that has not expired.
+   *
+   * @param key the key
+   * @return the value, starting with the header, or null
+   */
+  private byte[] read(String key) throws IOException {
+    byte[] bytes = backend.get(key);
+    if (bytes == null) {
+      return null;
+    }
+    if (bytes.length < HEADER_LENGTH || bytes[0] != FORMAT_VERSION) {
+      logger.warn("Ignoring malformed value in remote cache: " + key);
+      return null;
+    }
+    long writeTime = 0;
+    for (int i = 1; i < HEADER_LENGTH; i++) {
+      writeTime = (writeTime << 8) | (bytes[i] & 0xFF);
+    }
+    if (expireAfterWriteMillis > 0 && clock.getAsLong() - writeTime >= expireAfterWriteMillis) {
+      return null;
+    }
+    return bytes;
+  }
+
+  /**
+   * Create a value with the header for the current time.
+   *
+   * @param length the length of the content after the header
+   * @return the value
+   */
+  private byte[] newValue(int length) {
+    byte[] bytes = new byte[HEADER_LENGTH + length];
+    bytes[0] = FORMAT_VERSION;
+    long writeTime = clock.getAsLong();
+    for (int i = HEADER_LENGTH - 1; i > 0; i--) {
+      bytes[i] = (byte) writeTime;
+      writeTime >>>= 8;
+    }
+    return bytes;
+  }
+}
@@ -0,0 +1,43 @@
+package de.samply.common.ldmclient.cache;
+
+import java.io.IOException;
+
+/**
+ * Storage for serialized result pages and statistics that can be shared between several nodes,
+ * e.g. a distributed key-value store.
+ *
+ * <p>Implementations must be thread-safe. Values are never modified after they have been put, so
+ * implementations do not need to copy them.
+ *
+ * <p>Implementations should bound their size, e.g. by evicting the least recently used or the
+ * oldest values. A value may be evicted at any time; {@link #get(String)} then returns null and
+ * the value is requested from the LDM again. Expiry of values is handled by the {@link
+ * RemoteResultCache}, so backends may but do not need to expire values by age.
+ */
+public interface ResultCacheBackend {
+
+  /**
+   * Get a value.
+   *
+   * @param key the key
+   * @return the value or null if not present
+   * @throws IOException if the backend can not be read
+   */
+  byte[] get(String key) throws IOException;
+
+  /**
+   * Put a value, replacing an existing value of the same key.
+   *
+   * @param key   the key
+   * @param value the value
+   * @throws IOException if the backend can not be written
+   */
+  void put(String key, byte[] value) throws IOException;
+
+  /**
+   * Remove all values.
+   *
+   * @throws IOException if the backend can not be written
+   */
+  void invalidateAll() throws IOException;
+}
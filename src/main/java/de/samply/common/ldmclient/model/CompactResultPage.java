@@ -0,0 +1,303 @@
+package de.samply.common.ldmclient.model;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compact, columnar representation of a query result page.
+ *
+ * <p>A page is a list of entities (e.g. patients, samples), each with an optional parent entity
+ * and a list of attributes (MDR key and value). All strings are dictionary-encoded, entities and
+ * attributes are stored in primitive arrays. Instances are immutable.
+ */
+public final class CompactResultPage {
+
+  public static final int NO_PARENT = -1;
+  public static final int NULL_VALUE = -1;
+
+  private final String resultId;
+  private final String[] dictionary;
+  private final int[] entityTypes;
+  private final int[] entityIds;
+  private final int[] entityParents;
+  private final int[] attributeOffsets;
+  private final int[] attributeKeys;
+  private final int[] attributeValues;
+
+  CompactResultPage(String resultId, String[] dictionary, int[] entityTypes, int[] entityIds,
+      int[] entityParents, int[] attributeOffsets, int[] attributeKeys, int[] attributeValues) {
+    this.resultId = resultId;
+    this.dictionary = dictionary;
+    this.entityTypes = entityTypes;
+    this.entityIds = entityIds;
+    this.entityParents = entityParents;
+    this.attributeOffsets = attributeOffsets;
+    this.attributeKeys = attributeKeys;
+    this.attributeValues = attributeValues;
+  }
+
+  public static Builder builder(String resultId) {
+    return new Builder(resultId);
+  }
+
+  public String getResultId() {
+    return resultId;
+  }
+
+  public int getEntityCount() {
+    return entityIds.length;
+  }
+
+  public String getEntityType(int entity) {
+    return lookup(entityTypes[entity]);
+  }
+
+  public String getEntityId(int entity) {
+    return lookup(entityIds[entity]);
+  }
+
+  /**
+   * Get the dictionary code of the type of an entity. Codes are only comparable within the same
+   * page.
+   *
+   * @param entity the index of the entity
+   * @return the dictionary code or {@link #NULL_VALUE}
+   */
+  public int getEntityTypeCode(int entity) {
+    return entityTypes[entity];
+  }
+
+  int getEntityIdCode(int entity) {
+    return entityIds[entity];
+  }
+
+  /**
+   * Get the index of the parent of an entity.
+   *
+   * @param entity the index of the entity
+   * @return the index of the parent entity or {@link #NO_PARENT}
+   */
+  public int getParent(int entity) {
+    return entityParents[entity];
+  }
+
+  /**
+   * Get the index of the first attribute of an entity.
+   *
+   * @param entity the index of the entity
+   * @return the (inclusive) start index of the attributes of the entity
+   */
+  public int getAttributeStart(int entity) {
+    return attributeOffsets[entity];
+  }
+
+  /**
+   * Get the index after the last attribute of an entity.
+   *
+   * @param entity the index of the entity
+   * @return the (exclusive) end index of the attributes of the entity
+   */
+  public int getAttributeEnd(int entity) {
+    return attributeOffsets[entity + 1];
+  }
+
+  public int getAttributeCount() {
+    return attributeKeys.length;
+  }
+
+  public String getMdrKey(int attribute) {
+    return lookup(attributeKeys[attribute]);
+  }
+
+  public String getValue(int attribute) {
+    return lookup(attributeValues[attribute]);
+  }
+
+  /**
+   * Get the dictionary code of an MDR key. Codes are only comparable within the same page.
+   *
+   * @param attribute the index of the attribute
+   * @return the dictionary code
+   */
+  public int getMdrKeyCode(int attribute) {
+    return attributeKeys[attribute];
+  }
+
+  /**
+   * Get the dictionary code of a value. Codes are only comparable within the same page.
+   *
+   * @param attribute the index of the attribute
+   * @return the dictionary code or {@link #NULL_VALUE}
+   */
+  public int getValueCode(int attribute) {
+    return attributeValues[attribute];
+  }
+
+  /**
+   * Get the string for a dictionary code.
+   *
+   * @param code the dictionary code
+   * @return the string or null for {@link #NULL_VALUE}
+   */
+  public String lookup(int code) {
+    return code == NULL_VALUE ? null : dictionary[code];
+  }
+
+  /**
+   * Get the dictionary code of a string.
+   *
+   * @param value the string
+   * @return the dictionary code or {@link #NULL_VALUE} if the string does not occur on this page
+   */
+  public int codeOf(String value) {
+    if (value == null) {
+      return NULL_VALUE;
+    }
+    for (int i = 0; i < dictionary.length; i++) {
+      if (dictionary[i].equals(value)) {
+        return i;
+      }
+    }
+    return NULL_VALUE;
+  }
+
+  /**
+   * Get the number of distinct strings on this page. All dictionary codes are below this number.
+   *
+   * @return the size of the dictionary
+   */
+  public int getDictionarySize() {
+    return dictionary.length;
+  }
+
+  /**
+   * Estimate the retained heap size of this page.
+   *
+   * @return the estimated size in bytes
+   */
+  public long estimateSizeInBytes() {
+    long size = 64;
+    for (String entry : dictionary) {
+      size += 8 + 40 + 2L * entry.length();
+    }
+    size += 16 + 4L * (entityTypes.length + entityIds.length + entityParents.length);
+    size += 16 + 4L * attributeOffsets.length;
+    size += 32 + 4L * (attributeKeys.length + attributeValues.length);
+    return size;
+  }
+
+  @Override
+  public String toString() {
+    return "CompactResultPage{"
+        + "resultId='" + resultId + '\''
+        + ", entities=" + getEntityCount()
+        + ", attributes=" + getAttributeCount()
+        + ", dictionary=" + dictionary.length
+        + '}';
+  }
+
+  /**
+   * Builds a {@link CompactResultPage} entity by entity. Not thread-safe.
+   */
+  public static final class Builder {
+
+    private final String resultId;
+    private final Map<String, Integer> codes = new HashMap<>();
+    private String[] dictionary = new String[64];
+    private int[] entityTypes = new int[16];
+    private int[] entityIds = new int[16];
+    private int[] entityParents = new int[16];
+    private int[] attributeOffsets = new int[17];
+    private int[] attributeKeys = new int[64];
+    private int[] attributeValues = new int[64];
+    private int entityCount;
+    private int attributeCount;
+
+    private Builder(String resultId) {
+      this.resultId = resultId;
+    }
+
+    /**
+     * Start a new entity. All attributes added afterwards belong to this entity.
+     *
+     * @param type   the type of the entity, e.g. "Patient"
+     * @param id     the id of the entity
+     * @param parent the index of the parent entity or {@link #NO_PARENT}
+     * @return the index of the new entity
+     */
+    public int addEntity(String type, String id, int parent) {
+      if (parent != NO_PARENT && (parent < 0 || parent >= entityCount)) {
+        throw new IndexOutOfBoundsException("Unknown parent entity: " + parent);
+      }
+      if (entityCount == entityIds.length) {
+        int capacity = entityCount * 2;
+        entityTypes = Arrays.copyOf(entityTypes, capacity);
+        entityIds = Arrays.copyOf(entityIds, capacity);
+        entityParents = Arrays.copyOf(entityParents, capacity);
+        attributeOffsets = Arrays.copyOf(attributeOffsets, capacity + 1);
+      }
+      entityTypes[entityCount] = encode(type);
+      entityIds[entityCount] = encode(id);
+      entityParents[entityCount] = parent;
+      attributeOffsets[entityCount] = attributeCount;
+      attributeOffsets[entityCount + 1] = attributeCount;
+      return entityCount++;
+    }
+
+    /**
+     * Add an attribute to the last added entity.
+     *
+     * @param mdrKey the MDR key of the attribute
+     * @param value  the value of the attribute
+     * @return this builder
+     */
+    public Builder addAttribute(String mdrKey, String value) {
+      if (entityCount == 0) {
+        throw new IllegalStateException("No entity added yet");
+      }
+      if (attributeCount == attributeKeys.length) {
+        int capacity = attributeCount * 2;
+        attributeKeys = Arrays.copyOf(attributeKeys, capacity);
+        attributeValues = Arrays.copyOf(attributeValues, capacity);
+      }
+      attributeKeys[attributeCount] = encode(mdrKey);
+      attributeValues[attributeCount] = encode(value);
+      attributeCount++;
+      attributeOffsets[entityCount] = attributeCount;
+      return this;
+    }
+
+    /**
+     * Build the page. Arrays are trimmed to their exact size.
+     *
+     * @return the compact page
+     */
+    public CompactResultPage build() {
+      return new CompactResultPage(resultId,
+          Arrays.copyOf(dictionary, codes.size()),
+          Arrays.copyOf(entityTypes, entityCount),
+          Arrays.copyOf(entityIds, entityCount),
+          Arrays.copyOf(entityParents, entityCount),
+          Arrays.copyOf(attributeOffsets, entityCount + 1),
+          Arrays.copyOf(attributeKeys, attributeCount),
+          Arrays.copyOf(attributeValues, attributeCount));
+    }
+
+    private int encode(String value) {
+      if (value == null) {
+        return NULL_VALUE;
+      }
+      Integer code = codes.get(value);
+      if (code == null) {
+        code = codes.size();
+        if (code == dictionary.length) {
+          dictionary = Arrays.copyOf(dictionary, code * 2);
+        }
+        dictionary[code] = value;
+        codes.put(value, code);
+      }
+      return code;
+    }
+  }
+}
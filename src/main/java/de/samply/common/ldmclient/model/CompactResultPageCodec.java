@@ -0,0 +1,252 @@
+package de.samply.common.ldmclient.model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Compact binary serialization of {@link CompactResultPage}s.
+ *
+ * <p>The format is the dictionary (length-prefixed UTF-8 strings) followed by the entity and
+ * attribute columns as unsigned variable-length integers. It is considerably smaller and faster
+ * to read and write than the xml of the result page.
+ */
+public final class CompactResultPageCodec {
+
+  private static final byte FORMAT_VERSION = 1;
+
+  private CompactResultPageCodec() {
+
+  }
+
+  /**
+   * Serialize a page.
+   *
+   * @param page the page
+   * @return the serialized page
+   */
+  public static byte[] encode(CompactResultPage page) {
+    Writer writer = new Writer(64 + (int) Math.min(Integer.MAX_VALUE / 2,
+        page.estimateSizeInBytes() / 2));
+    writer.writeByte(FORMAT_VERSION);
+    writer.writeString(page.getResultId());
+
+    int dictionarySize = page.getDictionarySize();
+    writer.writeVarInt(dictionarySize);
+    for (int code = 0; code < dictionarySize; code++) {
+      writer.writeString(page.lookup(code));
+    }
+
+    int entityCount = page.getEntityCount();
+    writer.writeVarInt(entityCount);
+    for (int entity = 0; entity < entityCount; entity++) {
+      writer.writeVarInt(page.getEntityTypeCode(entity) + 1);
+      writer.writeVarInt(page.getEntityIdCode(entity) + 1);
+      writer.writeVarInt(page.getParent(entity) + 1);
+      writer.writeVarInt(page.getAttributeEnd(entity) - page.getAttributeStart(entity));
+    }
+
+    int attributeCount = page.getAttributeCount();
+    for (int attribute = 0; attribute < attributeCount; attribute++) {
+      writer.writeVarInt(page.getMdrKeyCode(attribute) + 1);
+      writer.writeVarInt(page.getValueCode(attribute) + 1);
+    }
+    return writer.toByteArray();
+  }
+
+  /**
+   * Deserialize a page. The bytes are validated before anything is allocated, so corrupt or
+   * malicious input can neither exhaust the heap nor yield a page with dangling codes.
+   *
+   * @param bytes the serialized page
+   * @return the page
+   * @throws IllegalArgumentException if the bytes are no valid serialized page of a known version
+   */
+  public static CompactResultPage decode(byte[] bytes) {
+    return decode(bytes, 0);
+  }
+
+  /**
+   * Deserialize a page that starts at an offset, e.g. after a header of the cache entry.
+   *
+   * @param bytes  the bytes that end with the serialized page
+   * @param offset the index of the first byte of the page
+   * @return the page
+   * @throws IllegalArgumentException if the bytes are no valid serialized page of a known version
+   */
+  public static CompactResultPage decode(byte[] bytes, int offset) {
+    if (offset < 0 || offset > bytes.length) {
+      throw new IllegalArgumentException("Invalid offset: " + offset);
+    }
+    Reader reader = new Reader(bytes, offset);
+    byte version = reader.readByte();
+    if (version != FORMAT_VERSION) {
+      throw new IllegalArgumentException("Unknown format version: " + version);
+    }
+    String resultId = reader.readString();
+
+    // every string needs at least one byte for its length
+    String[] dictionary = new String[reader.readCount(1)];
+    for (int code = 0; code < dictionary.length; code++) {
+      dictionary[code] = reader.readString();
+      if (dictionary[code] == null) {
+        throw new IllegalArgumentException("Null in dictionary at code " + code);
+      }
+    }
+
+    // every entity needs at least four bytes: type, id, parent and number of attributes
+    int entityCount = reader.readCount(4);
+    int[] entityTypes = new int[entityCount];
+    int[] entityIds = new int[entityCount];
+    int[] entityParents = new int[entityCount];
+    int[] attributeOffsets = new int[entityCount + 1];
+    for (int entity = 0; entity < entityCount; entity++) {
+      entityTypes[entity] = reader.readCode(dictionary.length);
+      entityIds[entity] = reader.readCode(dictionary.length);
+      entityParents[entity] = reader.readCode(entity);
+      // every attribute needs at least two bytes: key and value
+      long attributeEnd = (long) attributeOffsets[entity] + reader.readVarInt();
+      if (attributeEnd < attributeOffsets[entity] || attributeEnd > reader.remaining() / 2) {
+        throw new IllegalArgumentException("Invalid number of attributes of entity " + entity);
+      }
+      attributeOffsets[entity + 1] = (int) attributeEnd;
+    }
+
+    int attributeCount = attributeOffsets[entityCount];
+    int[] attributeKeys = new int[attributeCount];
+    int[] attributeValues = new int[attributeCount];
+    for (int attribute = 0; attribute < attributeCount; attribute++) {
+      attributeKeys[attribute] = reader.readCode(dictionary.length);
+      attributeValues[attribute] = reader.readCode(dictionary.length);
+    }
+    if (reader.remaining() != 0) {
+      throw new IllegalArgumentException("Unexpected bytes after serialized page");
+    }
+
+    return new CompactResultPage(resultId, dictionary, entityTypes, entityIds, entityParents,
+        attributeOffsets, attributeKeys, attributeValues);
+  }
+
+  private static final class Writer {
+
+    private byte[] buffer;
+    private int position;
+
+    private Writer(int capacity) {
+      this.buffer = new byte[Math.max(16, capacity)];
+    }
+
+    private void ensureCapacity(int additional) {
+      if (position + additional > buffer.length) {
+        buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + additional));
+      }
+    }
+
+    private void writeByte(byte value) {
+      ensureCapacity(1);
+      buffer[position++] = value;
+    }
+
+    private void writeVarInt(int value) {
+      ensureCapacity(5);
+      while ((value & ~0x7F) != 0) {
+        buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+        value >>>= 7;
+      }
+      buffer[position++] = (byte) value;
+    }
+
+    private void writeString(String value) {
+      if (value == null) {
+        writeVarInt(0);
+        return;
+      }
+      byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+      writeVarInt(bytes.length + 1);
+      ensureCapacity(bytes.length);
+      System.arraycopy(bytes, 0, buffer, position, bytes.length);
+      position += bytes.length;
+    }
+
+    private byte[] toByteArray() {
+      return Arrays.copyOf(buffer, position);
+    }
+  }
+
+  private static final class Reader {
+
+    private final byte[] buffer;
+    private int position;
+
+    private Reader(byte[] buffer, int position) {
+      this.buffer = buffer;
+      this.position = position;
+    }
+
+    private byte readByte() {
+      checkAvailable(1);
+      return buffer[position++];
+    }
+
+    private int readVarInt() {
+      int value = 0;
+      for (int shift = 0; shift < 35; shift += 7) {
+        byte b = readByte();
+        value |= (b & 0x7F) << shift;
+        if ((b & 0x80) == 0) {
+          return value;
+        }
+      }
+      throw new IllegalArgumentException("Malformed variable-length integer");
+    }
+
+    private String readString() {
+      int length = readVarInt();
+      if (length == 0) {
+        return null;
+      }
+      length--;
+      checkAvailable(length);
+      String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+      position += length;
+      return value;
+    }
+
+    /**
+     * Read the number of following items.
+     *
+     * @param minBytesPerItem the minimum number of bytes of each item
+     * @return the number of items, which fit into the remaining bytes
+     */
+    private int readCount(int minBytesPerItem) {
+      int count = readVarInt();
+      if (count < 0 || count > remaining() / minBytesPerItem) {
+        throw new IllegalArgumentException("Invalid number of items: " + count);
+      }
+      return count;
+    }
+
+    /**
+     * Read a code that was written incremented by one, so -1 is written as 0.
+     *
+     * @param limit the (exclusive) upper bound of the code
+     * @return the code, between -1 and limit - 1
+     */
+    private int readCode(int limit) {
+      int code = readVarInt() - 1;
+      if (code < -1 || code >= limit) {
+        throw new IllegalArgumentException("Code out of range: " + code);
+      }
+      return code;
+    }
+
+    private int remaining() {
+      return buffer.length - position;
+    }
+
+    private void checkAvailable(int length) {
+      if (length < 0 || length > remaining()) {
+        throw new IllegalArgumentException("Unexpected end of serialized page");
+      }
+    }
+  }
+}
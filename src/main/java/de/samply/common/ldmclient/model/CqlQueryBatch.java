@@ -0,0 +1,83 @@
+package de.samply.common.ldmclient.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Several CQL criteria that are evaluated together in one Library and one Measure.
+ *
+ * <p>The library header contains everything the criteria share: the library declaration, the
+ * used models, the context and the definitions the stratifiers refer to (e.g. Gender, AgeClass).
+ * Every criterion is a CQL expression that becomes a named definition of the combined library and
+ * the population criteria of its own Measure group.
+ */
+public class CqlQueryBatch {
+
+  private static final String EXPRESSION_PREFIX = "Criterion";
+
+  private final String libraryHeader;
+  private final Map<String, String> criteria = new LinkedHashMap<>();
+
+  public CqlQueryBatch(String libraryHeader) {
+    this.libraryHeader = libraryHeader;
+  }
+
+  /**
+   * Add a criterion to the batch.
+   *
+   * @param name       the name under which the result of this criterion is returned
+   * @param expression the CQL expression that defines the initial population
+   * @return this batch
+   */
+  public CqlQueryBatch addQuery(String name, String expression) {
+    if (criteria.containsKey(name)) {
+      throw new IllegalArgumentException("Duplicate query name: " + name);
+    }
+    criteria.put(name, expression);
+    return this;
+  }
+
+  public String getLibraryHeader() {
+    return libraryHeader;
+  }
+
+  public List<String> getNames() {
+    return Collections.unmodifiableList(new ArrayList<>(criteria.keySet()));
+  }
+
+  public int size() {
+    return criteria.size();
+  }
+
+  public boolean isEmpty() {
+    return criteria.isEmpty();
+  }
+
+  /**
+   * Get the name of the CQL definition of the criterion at the given position.
+   *
+   * @param index the position of the criterion in this batch
+   * @return the name of the definition
+   */
+  public static String getExpressionName(int index) {
+    return EXPRESSION_PREFIX + index;
+  }
+
+  /**
+   * Create the content of the combined library.
+   *
+   * @return the CQL library
+   */
+  public String toLibrary() {
+    StringBuilder library = new StringBuilder(libraryHeader);
+    int index = 0;
+    for (String expression : criteria.values()) {
+      library.append("\n\ndefine ").append(getExpressionName(index++)).append(":\n  ")
+          .append(expression);
+    }
+    return library.append('\n').toString();
+  }
+}
@@ -0,0 +1,85 @@
+package de.samply.common.ldmclient.transport;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.http.Consts;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpHead;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.util.EntityUtils;
+
+/**
+ * Transport based on the Apache http client (HTTP/1.1). This is the default transport.
+ */
+public class ApacheLdmTransport implements LdmTransport {
+
+  private final CloseableHttpClient httpClient;
+  private final Map<Integer, RequestConfig> requestConfigs = new ConcurrentHashMap<>();
+
+  public ApacheLdmTransport(CloseableHttpClient httpClient) {
+    this.httpClient = httpClient;
+  }
+
+  public CloseableHttpClient getHttpClient() {
+    return httpClient;
+  }
+
+  @Override
+  public LdmResponse execute(LdmRequest request) throws IOException {
+    HttpRequestBase httpRequest = createHttpRequest(request);
+    try (CloseableHttpResponse response = httpClient.execute(httpRequest)) {
+      HttpEntity entity = response.getEntity();
+      String body = entity == null ? null : EntityUtils.toString(entity, Consts.UTF_8);
+      LdmResponse ldmResponse = new LdmResponse(response.getStatusLine().getStatusCode(), body);
+      for (Header header : response.getAllHeaders()) {
+        ldmResponse.addHeader(header.getName(), header.getValue());
+      }
+      return ldmResponse;
+    }
+  }
+
+  private HttpRequestBase createHttpRequest(LdmRequest request) {
+    HttpRequestBase httpRequest;
+    switch (request.getMethod()) {
+      case LdmRequest.METHOD_GET:
+        httpRequest = new HttpGet(request.getUri());
+        break;
+      case LdmRequest.METHOD_HEAD:
+        httpRequest = new HttpHead(request.getUri());
+        break;
+      case LdmRequest.METHOD_POST:
+        HttpPost httpPost = new HttpPost(request.getUri());
+        httpPost.setEntity(new StringEntity(request.getBody(), Consts.UTF_8));
+        httpRequest = httpPost;
+        break;
+      default:
+        throw new IllegalArgumentException("Unsupported method: " + request.getMethod());
+    }
+
+    for (Map.Entry<String, String> header : request.getDefaultHeaders().entrySet()) {
+      httpRequest.setHeader(header.getKey(), header.getValue());
+    }
+    for (String[] header : request.getHeaders()) {
+      httpRequest.setHeader(header[0], header[1]);
+    }
+    if (request.getTimeoutMillis() > 0) {
+      httpRequest.setConfig(requestConfigs.computeIfAbsent(request.getTimeoutMillis(),
+          timeout -> RequestConfig.custom().setSocketTimeout(timeout).setConnectTimeout(timeout)
+              .setConnectionRequestTimeout(timeout).build()));
+    }
+    return httpRequest;
+  }
+
+  @Override
+  public void close() throws IOException {
+    httpClient.close();
+  }
+}
@@ -0,0 +1,130 @@
+package de.samply.common.ldmclient.transport;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import org.apache.hc.client5.http.async.methods.SimpleHttpRequest;
+import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.util.Timeout;
+
+/**
+ * Transport that multiplexes all requests to an LDM over HTTP/2 connections (Apache http client
+ * 5). Many concurrent polls and page downloads share a single connection per LDM instead of one
+ * pooled connection each.
+ *
+ * <p>The LDM has to support HTTP/2: "h2" via ALPN for https (Java 8u252 or newer), or "h2c" with
+ * prior knowledge for http. Requires the optional dependency org.apache.httpcomponents.client5.
+ *
+ * <p>The number of concurrent requests per connection is limited by the LDM (its
+ * SETTINGS_MAX_CONCURRENT_STREAMS); use a {@link SchedulingLdmTransport} to limit it on the client.
+ */
+public class Http2LdmTransport implements LdmTransport {
+
+  private final CloseableHttpAsyncClient httpClient;
+  private final Map<Integer, RequestConfig> requestConfigs = new ConcurrentHashMap<>();
+
+  /**
+   * Create a transport with a new HTTP/2 client.
+   */
+  public Http2LdmTransport() {
+    this(HttpAsyncClients.customHttp2().build());
+  }
+
+  /**
+   * Create a transport for an existing HTTP/2 client, e.g. with TLS or proxy settings. The
+   * client is started if necessary and closed together with this transport.
+   *
+   * @param httpClient the client
+   */
+  public Http2LdmTransport(CloseableHttpAsyncClient httpClient) {
+    this.httpClient = httpClient;
+    this.httpClient.start();
+  }
+
+  @Override
+  public LdmResponse execute(LdmRequest request) throws IOException {
+    try {
+      SimpleHttpResponse response = httpClient.execute(createHttpRequest(request), null).get();
+      LdmResponse ldmResponse = new LdmResponse(response.getCode(), getBody(response));
+      for (Header header : response.getHeaders()) {
+        ldmResponse.addHeader(header.getName(), header.getValue());
+      }
+      return ldmResponse;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting for " + request);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      throw new IOException("While executing " + request, e.getCause());
+    }
+  }
+
+  /**
+   * Decode the body with the charset of its content type, UTF-8 by default like {@link
+   * ApacheLdmTransport}.
+   */
+  private static String getBody(SimpleHttpResponse response) {
+    byte[] body = response.getBodyBytes();
+    if (body == null) {
+      return null;
+    }
+    ContentType contentType = response.getContentType();
+    Charset charset = contentType == null ? null : contentType.getCharset();
+    return new String(body, charset == null ? StandardCharsets.UTF_8 : charset);
+  }
+
+  private SimpleHttpRequest createHttpRequest(LdmRequest request) {
+    SimpleHttpRequest httpRequest = new SimpleHttpRequest(request.getMethod(),
+        URI.create(request.getUri()));
+
+    String contentType = null;
+    for (Map.Entry<String, String> header : request.getDefaultHeaders().entrySet()) {
+      if (HttpHeaders.CONTENT_TYPE.equalsIgnoreCase(header.getKey())) {
+        contentType = header.getValue();
+      } else {
+        httpRequest.setHeader(header.getKey(), header.getValue());
+      }
+    }
+    for (String[] header : request.getHeaders()) {
+      if (HttpHeaders.CONTENT_TYPE.equalsIgnoreCase(header[0])) {
+        contentType = header[1];
+      } else {
+        httpRequest.setHeader(header[0], header[1]);
+      }
+    }
+
+    if (request.getBody() != null) {
+      // the content type is sent with the body, setting it as header as well is rejected
+      httpRequest.setBody(request.getBody(), contentType == null
+          ? ContentType.TEXT_PLAIN.withCharset(StandardCharsets.UTF_8)
+          : ContentType.parse(contentType).withCharset(StandardCharsets.UTF_8));
+    }
+    if (request.getTimeoutMillis() > 0) {
+      httpRequest.setConfig(requestConfigs.computeIfAbsent(request.getTimeoutMillis(),
+          timeout -> RequestConfig.custom()
+              .setConnectionRequestTimeout(Timeout.ofMilliseconds(timeout))
+              .setResponseTimeout(Timeout.ofMilliseconds(timeout))
+              .build()));
+    }
+    return httpRequest;
+  }
+
+  @Override
+  public void close() {
+    httpClient.close(CloseMode.GRACEFUL);
+  }
+}
@@ -0,0 +1,134 @@
+package de.samply.common.ldmclient.transport;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An http request to a local datamanagement, independent of the http client in use.
+ */
+public final class LdmRequest {
+
+  public static final String METHOD_GET = "GET";
+  public static final String METHOD_HEAD = "HEAD";
+  public static final String METHOD_POST = "POST";
+
+  private final String method;
+  private final String uri;
+  private Map<String, String> defaultHeaders = Collections.emptyMap();
+  private final List<String[]> headers = new ArrayList<>(2);
+  private String body;
+  private int timeoutMillis;
+  private RequestPriority priority = RequestPriority.INTERACTIVE;
+
+  private LdmRequest(String method, String uri) {
+    this.method = method;
+    this.uri = uri;
+  }
+
+  public static LdmRequest get(String uri) {
+    return new LdmRequest(METHOD_GET, uri);
+  }
+
+  public static LdmRequest head(String uri) {
+    return new LdmRequest(METHOD_HEAD, uri);
+  }
+
+  /**
+   * Create a POST request.
+   *
+   * @param uri  the uri
+   * @param body the body, sent as UTF-8
+   * @return the request
+   */
+  public static LdmRequest post(String uri, String body) {
+    LdmRequest request = new LdmRequest(METHOD_POST, uri);
+    request.body = body;
+    return request;
+  }
+
+  /**
+   * Set the headers that are configured for all requests. The map is not copied and must not be
+   * modified afterwards.
+   *
+   * @param defaultHeaders the headers
+   * @return this request
+   */
+  public LdmRequest defaultHeaders(Map<String, String> defaultHeaders) {
+    this.defaultHeaders = defaultHeaders;
+    return this;
+  }
+
+  /**
+   * Set a header of this request. Overrides a default header of the same name.
+   *
+   * @param name  the name of the header
+   * @param value the value of the header
+   * @return this request
+   */
+  public LdmRequest header(String name, String value) {
+    headers.add(new String[]{name, value});
+    return this;
+  }
+
+  /**
+   * Set the timeout for connecting and reading the response.
+   *
+   * @param timeoutMillis the timeout in milliseconds, 0 for the default of the transport
+   * @return this request
+   */
+  public LdmRequest timeout(int timeoutMillis) {
+    this.timeoutMillis = timeoutMillis;
+    return this;
+  }
+
+  /**
+   * Set the priority class of this request. Only used by scheduling transports.
+   *
+   * @param priority the priority class
+   * @return this request
+   */
+  public LdmRequest priority(RequestPriority priority) {
+    this.priority = priority;
+    return this;
+  }
+
+  public String getMethod() {
+    return method;
+  }
+
+  public String getUri() {
+    return uri;
+  }
+
+  public Map<String, String> getDefaultHeaders() {
+    return defaultHeaders;
+  }
+
+  /**
+   * Get the headers of this request, each as a pair of name and value.
+   *
+   * @return the headers of this request
+   */
+  public List<String[]> getHeaders() {
+    return headers;
+  }
+
+  public String getBody() {
+    return body;
+  }
+
+  public int getTimeoutMillis() {
+    return timeoutMillis;
+  }
+
+  public RequestPriority getPriority() {
+    return priority;
+  }
+
+  @Override
+  public String toString() {
+    return method + " " + uri;
+  }
+}
@@ -0,0 +1,54 @@
+package de.samply.common.ldmclient.transport;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A completely read http response of a local datamanagement.
+ */
+public final class LdmResponse {
+
+  private final int statusCode;
+  private final Map<String, String> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+  private final String body;
+
+  public LdmResponse(int statusCode, String body) {
+    this.statusCode = statusCode;
+    this.body = body;
+  }
+
+  /**
+   * Add a response header. Only the first value of each header is kept.
+   *
+   * @param name  the name of the header
+   * @param value the value of the header
+   * @return this response
+   */
+  public LdmResponse addHeader(String name, String value) {
+    headers.putIfAbsent(name, value);
+    return this;
+  }
+
+  public int getStatusCode() {
+    return statusCode;
+  }
+
+  /**
+   * Get the value of the first header with the given name.
+   *
+   * @param name the name of the header (case-insensitive)
+   * @return the value or null if there is no such header
+   */
+  public String getFirstHeader(String name) {
+    return headers.get(name);
+  }
+
+  /**
+   * Get the body of the response.
+   *
+   * @return the body or null if the response has none
+   */
+  public String getBody() {
+    return body;
+  }
+}
@@ -0,0 +1,22 @@
+package de.samply.common.ldmclient.transport;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Executes http requests against a local datamanagement.
+ *
+ * <p>Implementations must be thread-safe, as one transport is shared by all threads that use an
+ * LDM client.
+ */
+public interface LdmTransport extends Closeable {
+
+  /**
+   * Execute a request and read the complete response.
+   *
+   * @param request the request
+   * @return the response, including its body
+   * @throws IOException on connection or protocol errors
+   */
+  LdmResponse execute(LdmRequest request) throws IOException;
+}
@@ -0,0 +1,22 @@
+package de.samply.common.ldmclient.transport;
+
+/**
+ * Priority classes of requests to an LDM, used by {@link SchedulingLdmTransport}.
+ */
+public enum RequestPriority {
+
+  /**
+   * Requests a user is waiting for, e.g. posting a query for a count.
+   */
+  INTERACTIVE,
+
+  /**
+   * Polling for statistics and for the availability of result pages.
+   */
+  POLLING,
+
+  /**
+   * Downloading result pages.
+   */
+  BULK
+}
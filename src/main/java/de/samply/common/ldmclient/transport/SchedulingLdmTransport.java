@@ -0,0 +1,263 @@
+package de.samply.common.ldmclient.transport;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Transport that limits the number of concurrent requests to one LDM and schedules waiting
+ * requests by their {@link RequestPriority}.
+ *
+ * <p>Waiting requests are started by weighted fair queuing (stride scheduling): each priority
+ * class gets a share of the started requests proportional to its weight, and each class can be
+ * capped to a maximum number of concurrent requests. This keeps e.g. a large paged export from
+ * starving interactive counts. Use one instance per LDM.
+ */
+public class SchedulingLdmTransport implements LdmTransport {
+
+  private static final long STRIDE_BASE = 1L << 20;
+  private static final int RESERVED_SHARE = 4;
+
+  private final LdmTransport delegate;
+  private final int maxConcurrency;
+  private final Map<RequestPriority, PriorityClass> classes = new EnumMap<>(RequestPriority.class);
+  private final ReentrantLock lock = new ReentrantLock();
+  private int running;
+  private long virtualTime;
+
+  private SchedulingLdmTransport(Builder builder) {
+    this.delegate = builder.delegate;
+    this.maxConcurrency = builder.maxConcurrency;
+    for (RequestPriority priority : RequestPriority.values()) {
+      int cap = builder.caps.getOrDefault(priority, defaultCap(priority, builder.maxConcurrency));
+      classes.put(priority, new PriorityClass(priority, builder.weights.get(priority), cap));
+    }
+  }
+
+  /**
+   * Create a builder with default weights (interactive 8, polling 4, bulk 1). By default, bulk
+   * requests are capped so that a quarter of the slots, but at least one, stays reserved for
+   * interactive and polling requests; the other classes are not capped.
+   *
+   * @param delegate       the transport that executes the requests
+   * @param maxConcurrency the maximum number of concurrent requests, should not exceed the number
+   *                       of connections the delegate may open to the LDM
+   * @return the builder
+   */
+  public static Builder builder(LdmTransport delegate, int maxConcurrency) {
+    return new Builder(delegate, maxConcurrency);
+  }
+
+  /**
+   * Get the default cap of a priority class.
+   *
+   * @param priority       the priority class
+   * @param maxConcurrency the maximum number of concurrent requests
+   * @return the default cap
+   */
+  static int defaultCap(RequestPriority priority, int maxConcurrency) {
+    if (priority != RequestPriority.BULK || maxConcurrency == 1) {
+      return maxConcurrency;
+    }
+    return maxConcurrency - Math.max(1, maxConcurrency / RESERVED_SHARE);
+  }
+
+  @Override
+  public LdmResponse execute(LdmRequest request) throws IOException {
+    PriorityClass priorityClass = classes.get(request.getPriority());
+    acquire(priorityClass);
+    try {
+      return delegate.execute(request);
+    } finally {
+      release(priorityClass);
+    }
+  }
+
+  /**
+   * Get the wait time statistics of a priority class.
+   *
+   * @param priority the priority class
+   * @return a snapshot of the statistics
+   */
+  public WaitStatistics getWaitStatistics(RequestPriority priority) {
+    PriorityClass priorityClass = classes.get(priority);
+    lock.lock();
+    try {
+      return new WaitStatistics(priority, priorityClass.started, priorityClass.totalWaitNanos,
+          priorityClass.maxWaitNanos, priorityClass.queue.size(), priorityClass.running);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    delegate.close();
+  }
+
+  private void acquire(PriorityClass priorityClass) throws InterruptedIOException {
+    long submitted = System.nanoTime();
+    lock.lock();
+    try {
+      Ticket ticket = new Ticket(lock.newCondition());
+      if (priorityClass.queue.isEmpty() && priorityClass.running == 0) {
+        // a class that was idle must not catch up on the turns it did not need
+        priorityClass.pass = Math.max(priorityClass.pass, virtualTime);
+      }
+      priorityClass.queue.add(ticket);
+      dispatch();
+      while (!ticket.granted) {
+        try {
+          ticket.condition.await();
+        } catch (InterruptedException e) {
+          if (ticket.granted) {
+            releaseLocked(priorityClass);
+          } else {
+            priorityClass.queue.remove(ticket);
+          }
+          Thread.currentThread().interrupt();
+          throw new InterruptedIOException("Interrupted while waiting for a free slot");
+        }
+      }
+      long wait = System.nanoTime() - submitted;
+      priorityClass.started++;
+      priorityClass.totalWaitNanos += wait;
+      priorityClass.maxWaitNanos = Math.max(priorityClass.maxWaitNanos, wait);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void release(PriorityClass priorityClass) {
+    lock.lock();
+    try {
+      releaseLocked(priorityClass);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void releaseLocked(PriorityClass priorityClass) {
+    priorityClass.running--;
+    running--;
+    dispatch();
+  }
+
+  /**
+   * Start waiting requests while there are free slots. Must be called with the lock held.
+   */
+  private void dispatch() {
+    while (running < maxConcurrency) {
+      PriorityClass next = null;
+      for (PriorityClass candidate : classes.values()) {
+        if (!candidate.queue.isEmpty() && candidate.running < candidate.cap
+            && (next == null || candidate.pass < next.pass)) {
+          next = candidate;
+        }
+      }
+      if (next == null) {
+        return;
+      }
+      Ticket ticket = next.queue.poll();
+      next.running++;
+      running++;
+      virtualTime = next.pass;
+      next.pass += next.stride;
+      ticket.granted = true;
+      ticket.condition.signal();
+    }
+  }
+
+  private static final class Ticket {
+
+    private final Condition condition;
+    private boolean granted;
+
+    private Ticket(Condition condition) {
+      this.condition = condition;
+    }
+  }
+
+  private static final class PriorityClass {
+
+    private final RequestPriority priority;
+    private final long stride;
+    private final int cap;
+    private final ArrayDeque<Ticket> queue = new ArrayDeque<>();
+    private long pass;
+    private int running;
+    private long started;
+    private long totalWaitNanos;
+    private long maxWaitNanos;
+
+    private PriorityClass(RequestPriority priority, int weight, int cap) {
+      this.priority = priority;
+      this.stride = STRIDE_BASE / weight;
+      this.cap = cap;
+    }
+
+    @Override
+    public String toString() {
+      return priority.toString();
+    }
+  }
+
+  public static final class Builder {
+
+    private final LdmTransport delegate;
+    private final int maxConcurrency;
+    private final Map<RequestPriority, Integer> weights = new EnumMap<>(RequestPriority.class);
+    private final Map<RequestPriority, Integer> caps = new EnumMap<>(RequestPriority.class);
+
+    private Builder(LdmTransport delegate, int maxConcurrency) {
+      if (maxConcurrency <= 0) {
+        throw new IllegalArgumentException("maxConcurrency must be positive: " + maxConcurrency);
+      }
+      this.delegate = delegate;
+      this.maxConcurrency = maxConcurrency;
+      weights.put(RequestPriority.INTERACTIVE, 8);
+      weights.put(RequestPriority.POLLING, 4);
+      weights.put(RequestPriority.BULK, 1);
+    }
+
+    /**
+     * Set the weight of a priority class. A class with twice the weight gets twice as many
+     * requests started while several classes are waiting.
+     *
+     * @param priority the priority class
+     * @param weight   the weight, between 1 and 1024
+     * @return this builder
+     */
+    public Builder weight(RequestPriority priority, int weight) {
+      if (weight < 1 || weight > 1024) {
+        throw new IllegalArgumentException("Weight must be between 1 and 1024: " + weight);
+      }
+      weights.put(priority, weight);
+      return this;
+    }
+
+    /**
+     * Limit the number of concurrent requests of a priority class. Overrides the default cap of
+     * bulk requests.
+     *
+     * @param priority the priority class
+     * @param cap      the maximum number of concurrent requests
+     * @return this builder
+     */
+    public Builder cap(RequestPriority priority, int cap) {
+      if (cap <= 0) {
+        throw new IllegalArgumentException("Cap must be positive: " + cap);
+      }
+      caps.put(priority, cap);
+      return this;
+    }
+
+    public SchedulingLdmTransport build() {
+      return new SchedulingLdmTransport(this);
+    }
+  }
+}
@@ -0,0 +1,67 @@
+package de.samply.common.ldmclient.transport;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Snapshot of the time requests of one priority class waited from submission until they were
+ * started.
+ */
+public final class WaitStatistics {
+
+  private final RequestPriority priority;
+  private final long started;
+  private final long totalWaitNanos;
+  private final long maxWaitNanos;
+  private final int queued;
+  private final int running;
+
+  WaitStatistics(RequestPriority priority, long started, long totalWaitNanos, long maxWaitNanos,
+      int queued, int running) {
+    this.priority = priority;
+    this.started = started;
+    this.totalWaitNanos = totalWaitNanos;
+    this.maxWaitNanos = maxWaitNanos;
+    this.queued = queued;
+    this.running = running;
+  }
+
+  public RequestPriority getPriority() {
+    return priority;
+  }
+
+  /**
+   * Get the number of requests that have been started so far.
+   *
+   * @return the number of started requests
+   */
+  public long getStarted() {
+    return started;
+  }
+
+  public double getMeanWaitMillis() {
+    return started == 0 ? 0 : totalWaitNanos / (double) started / TimeUnit.MILLISECONDS.toNanos(1);
+  }
+
+  public double getMaxWaitMillis() {
+    return maxWaitNanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+  }
+
+  /**
+   * Get the number of requests that are currently waiting.
+   *
+   * @return the queue length
+   */
+  public int getQueued() {
+    return queued;
+  }
+
+  public int getRunning() {
+    return running;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%s: started=%d queued=%d running=%d meanWait=%.2fms maxWait=%.2fms",
+        priority, started, queued, running, getMeanWaitMillis(), getMaxWaitMillis());
+  }
+}
@@ -0,0 +1,139 @@
+package de.samply.common.ldmclient;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import de.samply.common.ldmclient.simulator.LdmSimulator;
+import de.samply.common.ldmclient.simulator.LdmSimulatorConfig;
+import de.samply.common.ldmclient.simulator.LdmSimulatorExtension;
+import de.samply.common.ldmclient.simulator.SimulatorLdmClient;
+import de.samply.common.ldmclient.transport.ApacheLdmTransport;
+import de.samply.common.ldmclient.transport.LdmRequest;
+import de.samply.common.ldmclient.transport.RequestPriority;
+import de.samply.common.ldmclient.transport.SchedulingLdmTransport;
+import de.samply.share.model.common.View;
+import org.apache.http.HttpStatus;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+class AbstractLdmClientTest {
+
+  @RegisterExtension
+  final LdmSimulatorExtension ldm = new LdmSimulatorExtension();
+
+  @Test
+  void providesHttpClientOfApacheTransport() throws LdmClientException {
+    SimulatorLdmClient client = new SimulatorLdmClient(ldm.getHttpClient(), config());
+
+    assertSame(ldm.getHttpClient(), client.getHttpClient());
+  }
+
+  @Test
+  void failsFastForHttpClientOfOtherTransports() throws Exception {
+    SchedulingLdmTransport transport = SchedulingLdmTransport
+        .builder(new ApacheLdmTransport(ldm.getHttpClient()), 2).build();
+    SimulatorLdmClient client = new SimulatorLdmClient(transport, config());
+
+    assertThrows(IllegalStateException.class, client::getHttpClient);
+    // requests of implementations go through the transport instead
+    String uri = ldm.getSimulator().getBaseUrl() + "info";
+    LdmRequest request = client.createGetRequest(uri, RequestPriority.BULK);
+    assertEquals(404, client.execute(request).getStatusCode());
+    assertEquals(1, transport.getWaitStatistics(RequestPriority.BULK).getStarted());
+  }
+
+  @Test
+  void warmUpOpensConnections() throws LdmClientException {
+    SimulatorLdmClient client = new SimulatorLdmClient(ldm.getHttpClient(),
+        config().toBuilder().warmUpConnections(3).build());
+
+    WarmUpReport report = client.warmUp();
+
+    // the simulator does not serve its base url, but it answers
+    assertTrue(report.isReady(), report.toString());
+    assertEquals(3, report.getConnectionsOpened());
+    assertEquals(404, report.getStatusCode());
+    assertNull(report.getFailure());
+    assertTrue(client.isReady());
+  }
+
+  @Test
+  void warmUpWithProbeOfLdmApi() throws LdmClientException {
+    ProbingClient client = new ProbingClient(config());
+    client.probeUri = client.postView(new View(), true) + "/stats";
+
+    WarmUpReport report = client.warmUp();
+
+    assertTrue(report.isReady(), report.toString());
+    assertEquals(200, report.getStatusCode());
+
+    client.probeUri = ldm.getSimulator().getBaseUrl() + "requests/unknown/stats";
+    report = client.warmUp();
+
+    assertFalse(report.isReady());
+    assertEquals(LdmClientConfig.WARM_UP_CONNECTIONS_DEFAULT, report.getConnectionsOpened());
+    assertEquals(404, report.getStatusCode());
+    assertNotNull(report.getFailure());
+    assertFalse(client.isReady());
+  }
+
+  @Test
+  void warmUpIsNotReadyOnRejectedCredentials() throws Exception {
+    LdmSimulator protectedLdm = ldm.start(LdmSimulatorConfig.builder()
+        .failureRate(1).failureStatusCode(401).build());
+    SimulatorLdmClient client = new SimulatorLdmClient(ldm.getHttpClient(),
+        LdmClientConfig.builder(protectedLdm.getBaseUrl()).build());
+
+    WarmUpReport report = client.warmUp();
+
+    assertFalse(report.isReady());
+    assertEquals(401, report.getStatusCode());
+    assertNotNull(report.getFailure());
+  }
+
+  @Test
+  void warmUpIsNotReadyOnServerErrors() throws Exception {
+    LdmSimulator unavailable = ldm.start(LdmSimulatorConfig.builder()
+        .failureRate(1).failureStatusCode(503).build());
+    SimulatorLdmClient client = new SimulatorLdmClient(ldm.getHttpClient(),
+        LdmClientConfig.builder(unavailable.getBaseUrl()).warmUpConnections(2).build());
+
+    WarmUpReport report = client.warmUp();
+
+    assertFalse(report.isReady());
+    // the connections are open nevertheless
+    assertEquals(2, report.getConnectionsOpened());
+    assertEquals(503, report.getStatusCode());
+  }
+
+  private LdmClientConfig config() {
+    return ldm.configBuilder().build();
+  }
+
+  /**
+   * Client that warms up with a request to an endpoint of the LDM API and only accepts success.
+   */
+  private final class ProbingClient extends SimulatorLdmClient {
+
+    private volatile String probeUri;
+
+    private ProbingClient(LdmClientConfig config) throws LdmClientException {
+      super(ldm.getHttpClient(), config);
+    }
+
+    @Override
+    protected LdmRequest createWarmUpRequest() {
+      return createGetRequest(probeUri, RequestPriority.INTERACTIVE);
+    }
+
+    @Override
+    protected boolean isReadyStatusCode(int statusCode) {
+      return statusCode == HttpStatus.SC_OK;
+    }
+  }
+}
@@ -0,0 +1,67 @@
+package de.samply.common.ldmclient;
+
+import de.samply.common.ldmclient.model.CompactResultPage;
+import de.samply.common.ldmclient.simulator.SimulatorLdmClient;
+import de.samply.share.model.common.Attribute;
+import de.samply.share.model.common.Entity;
+import de.samply.share.model.common.ObjectFactory;
+import de.samply.share.model.common.QueryResult;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.xml.bind.JAXBElement;
+import org.apache.http.impl.client.CloseableHttpClient;
+
+/**
+ * Simulator client with a compactor for the common query result: every entity becomes a patient
+ * with the attributes of the entity.
+ */
+class CompactingSimulatorClient extends SimulatorLdmClient {
+
+  static final String PATIENT = "Patient";
+
+  private static final ObjectFactory OBJECT_FACTORY = new ObjectFactory();
+
+  final AtomicInteger expandedPages = new AtomicInteger();
+
+  CompactingSimulatorClient(CloseableHttpClient httpClient, LdmClientConfig config)
+      throws LdmClientException {
+    super(httpClient, config);
+  }
+
+  @Override
+  protected ResultPageCompactor<QueryResult> getResultPageCompactor() {
+    return new ResultPageCompactor<QueryResult>() {
+      @Override
+      public CompactResultPage compact(QueryResult resultPage) {
+        CompactResultPage.Builder builder = CompactResultPage.builder(resultPage.getId());
+        for (Entity entity : resultPage.getEntity()) {
+          builder.addEntity(PATIENT, entity.getId(), CompactResultPage.NO_PARENT);
+          for (Attribute attribute : entity.getAttribute()) {
+            JAXBElement<String> value = attribute.getValue();
+            builder.addAttribute(attribute.getMdrKey(), value == null ? null : value.getValue());
+          }
+        }
+        return builder.build();
+      }
+
+      @Override
+      public QueryResult expand(CompactResultPage compactPage) {
+        expandedPages.incrementAndGet();
+        QueryResult resultPage = new QueryResult();
+        resultPage.setId(compactPage.getResultId());
+        for (int i = 0; i < compactPage.getEntityCount(); i++) {
+          Entity entity = new Entity();
+          entity.setId(compactPage.getEntityId(i));
+          for (int j = compactPage.getAttributeStart(i); j < compactPage.getAttributeEnd(i); j++) {
+            Attribute attribute = new Attribute();
+            attribute.setMdrKey(compactPage.getMdrKey(j));
+            String value = compactPage.getValue(j);
+            attribute.setValue(value == null ? null : OBJECT_FACTORY.createValue(value));
+            entity.getAttribute().add(attribute);
+          }
+          resultPage.getEntity().add(entity);
+        }
+        return resultPage;
+      }
+    };
+  }
+}
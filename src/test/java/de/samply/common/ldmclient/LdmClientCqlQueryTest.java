@@ -0,0 +1,244 @@
+package de.samply.common.ldmclient;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import de.samply.common.ldmclient.model.CqlQueryBatch;
+import de.samply.common.ldmclient.model.LdmQueryResult;
+import de.samply.common.ldmclient.transport.LdmRequest;
+import de.samply.common.ldmclient.transport.LdmResponse;
+import de.samply.common.ldmclient.transport.LdmTransport;
+import de.samply.share.model.common.Error;
+import de.samply.share.model.common.QueryResult;
+import de.samply.share.model.common.QueryResultStatistic;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpStatus;
+import org.junit.jupiter.api.Test;
+
+class LdmClientCqlQueryTest {
+
+  private static final String BASE_URL = "http://ldm.example/fhir/";
+
+  private final CqlQueryBatch batch = new CqlQueryBatch("library Retrieve")
+      .addQuery("female", "Patient.gender = 'female'")
+      .addQuery("male", "Patient.gender = 'male'");
+
+  @Test
+  void libraryDefinesEveryQuery() {
+    assertEquals("library Retrieve\n\n"
+        + "define Criterion0:\n  Patient.gender = 'female'\n\n"
+        + "define Criterion1:\n  Patient.gender = 'male'\n", batch.toLibrary());
+  }
+
+  @Test
+  void postsOneLibraryAndOneMeasure() throws LdmClientException {
+    CapturingTransport transport = new CapturingTransport();
+    CqlQueryBatch batch = new CqlQueryBatch("library Retrieve")
+        .addQuery("a", "exists [Condition] C where C.code.text = 'Bösartige Neubildung'")
+        .addQuery("b", "Patient.gender = 'male'")
+        .addQuery("c", "AgeInYears() > 60");
+
+    String location = new CqlClient(transport).postQueryBatch(batch, "patient");
+
+    assertEquals(BASE_URL + "Measure/1", location);
+    assertEquals(2, transport.requests.size());
+    JsonObject library = body(transport.requests.get(0), "Library");
+    String data = library.getAsJsonArray("content").get(0).getAsJsonObject().get("data")
+        .getAsString();
+    assertEquals(batch.toLibrary(),
+        new String(Base64.getDecoder().decode(data), StandardCharsets.UTF_8));
+    assertEquals(3, count(batch.toLibrary(), "\ndefine Criterion"));
+    String libraryUrl = library.get("url").getAsString();
+
+    JsonObject measure = body(transport.requests.get(1), "Measure");
+    assertEquals(libraryUrl, measure.getAsJsonArray("library").get(0).getAsString());
+    JsonArray groups = measure.getAsJsonArray("group");
+    assertEquals(batch.size(), groups.size());
+    for (int i = 0; i < groups.size(); i++) {
+      JsonObject group = groups.get(i).getAsJsonObject();
+      String expressionName = CqlQueryBatch.getExpressionName(i);
+      assertEquals(expressionName, group.getAsJsonObject("code").get("text").getAsString());
+      JsonArray populations = group.getAsJsonArray("population");
+      assertEquals(1, populations.size());
+      assertEquals(expressionName, populations.get(0).getAsJsonObject()
+          .getAsJsonObject("criteria").get("expression").getAsString());
+      JsonArray stratifiers = group.getAsJsonArray("stratifier");
+      assertEquals(Arrays.asList("Gender", "AgeClass"), Arrays.asList(
+          expression(stratifiers.get(0)), expression(stratifiers.get(1))));
+    }
+  }
+
+  @Test
+  void rejectsEmptyBatch() {
+    CapturingTransport transport = new CapturingTransport();
+
+    assertThrows(LdmClientException.class, () -> new CqlClient(transport)
+        .postQueryBatch(new CqlQueryBatch("library Retrieve"), "patient"));
+    assertTrue(transport.requests.isEmpty());
+  }
+
+  @Test
+  void splitsByGroupCode() throws LdmClientException {
+    JsonObject measureReport = measureReport(group("Criterion1", 7), group("Criterion0", 5));
+
+    Map<String, JsonObject> reports = LdmClientCqlQuery.splitMeasureReport(measureReport, batch);
+
+    assertEquals(Arrays.asList("female", "male"), Arrays.asList(reports.keySet().toArray()));
+    assertEquals(5, count(reports.get("female")));
+    assertEquals(7, count(reports.get("male")));
+    assertEquals("MeasureReport", reports.get("male").get("resourceType").getAsString());
+  }
+
+  @Test
+  void rejectsMissingGroup() {
+    JsonObject measureReport = measureReport(group("Criterion0", 5));
+
+    assertThrows(LdmClientException.class,
+        () -> LdmClientCqlQuery.splitMeasureReport(measureReport, batch));
+  }
+
+  @Test
+  void rejectsUnexpectedGroup() {
+    JsonObject measureReport = measureReport(group("Criterion0", 5), group("Criterion1", 7),
+        group("Criterion2", 9));
+
+    assertThrows(LdmClientException.class,
+        () -> LdmClientCqlQuery.splitMeasureReport(measureReport, batch));
+  }
+
+  @Test
+  void rejectsDuplicateGroup() {
+    JsonObject measureReport = measureReport(group("Criterion0", 5), group("Criterion0", 7));
+
+    assertThrows(LdmClientException.class,
+        () -> LdmClientCqlQuery.splitMeasureReport(measureReport, batch));
+  }
+
+  private static JsonObject body(LdmRequest request, String resourceType) {
+    assertEquals("POST", request.getMethod());
+    assertEquals(BASE_URL + resourceType, request.getUri());
+    JsonObject body = new JsonParser().parse(request.getBody()).getAsJsonObject();
+    assertEquals(resourceType, body.get("resourceType").getAsString());
+    return body;
+  }
+
+  private static String expression(JsonElement stratifier) {
+    return stratifier.getAsJsonObject().getAsJsonObject("criteria").get("expression")
+        .getAsString();
+  }
+
+  private static int count(String text, String part) {
+    int count = 0;
+    for (int i = text.indexOf(part); i >= 0; i = text.indexOf(part, i + 1)) {
+      count++;
+    }
+    return count;
+  }
+
+  private static JsonObject measureReport(JsonObject... groups) {
+    JsonObject measureReport = new JsonObject();
+    measureReport.addProperty("resourceType", "MeasureReport");
+    JsonArray group = new JsonArray();
+    for (JsonObject g : groups) {
+      group.add(g);
+    }
+    measureReport.add("group", group);
+    return measureReport;
+  }
+
+  private static JsonObject group(String code, int count) {
+    JsonObject group = new JsonObject();
+    JsonObject codeObject = new JsonObject();
+    codeObject.addProperty("text", code);
+    group.add("code", codeObject);
+    JsonObject population = new JsonObject();
+    population.addProperty("count", count);
+    JsonArray populations = new JsonArray();
+    populations.add(population);
+    group.add("population", populations);
+    return group;
+  }
+
+  private static int count(JsonObject report) {
+    JsonArray groups = report.getAsJsonArray("group");
+    assertEquals(1, groups.size());
+    return groups.get(0).getAsJsonObject().getAsJsonArray("population").get(0).getAsJsonObject()
+        .get("count").getAsInt();
+  }
+
+  /**
+   * Records the requests and answers them like an LDM that creates every resource.
+   */
+  private static final class CapturingTransport implements LdmTransport {
+
+    private final List<LdmRequest> requests = new ArrayList<>();
+
+    @Override
+    public LdmResponse execute(LdmRequest request) {
+      requests.add(request);
+      LdmResponse response = new LdmResponse(HttpStatus.SC_CREATED, "{}");
+      if (request.getUri().endsWith("Measure")) {
+        response.addHeader(HttpHeaders.LOCATION, BASE_URL + "Measure/1/_history/1");
+      }
+      return response;
+    }
+
+    @Override
+    public void close() {
+    }
+  }
+
+  private static final class CqlClient
+      extends LdmClientCqlQuery<QueryResult, QueryResultStatistic, Error> {
+
+    CqlClient(LdmTransport transport) {
+      super(transport, LdmClientConfig.builder(BASE_URL).build());
+    }
+
+    @Override
+    protected Class<QueryResult> getResultClass() {
+      return QueryResult.class;
+    }
+
+    @Override
+    protected Class<QueryResultStatistic> getStatisticsClass() {
+      return QueryResultStatistic.class;
+    }
+
+    @Override
+    protected Class<Error> getErrorClass() {
+      return Error.class;
+    }
+
+    @Override
+    public String getUserAgentInfo() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public QueryResult getResult(String location) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public String getVersionString() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public LdmQueryResult getStatsOrError(String location) {
+      throw new UnsupportedOperationException();
+    }
+  }
+}
@@ -0,0 +1,35 @@
+package de.samply.common.ldmclient;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.Test;
+
+class LdmClientUtilTest {
+
+  @Test
+  void addTrailingSlash() {
+    String normalized = "http://ldm/rest/";
+
+    assertSame(normalized, LdmClientUtil.addTrailingSlash(normalized));
+    assertEquals("http://ldm/rest/", LdmClientUtil.addTrailingSlash("http://ldm/rest"));
+    assertEquals("http://ldm/rest/", LdmClientUtil.addTrailingSlash("http://ldm/rest//"));
+    assertEquals("http://ldm/rest/", LdmClientUtil.addTrailingSlash("http://ldm/rest///"));
+    assertEquals("/", LdmClientUtil.addTrailingSlash("/"));
+    assertEquals("/", LdmClientUtil.addTrailingSlash("//"));
+    assertEquals("/", LdmClientUtil.addTrailingSlash(""));
+    assertEquals("", LdmClientUtil.addTrailingSlash(null));
+  }
+
+  @Test
+  void pathsOfLocation() {
+    for (String location : new String[]{"http://ldm/requests/1", "http://ldm/requests/1/",
+        "http://ldm/requests/1//"}) {
+      assertEquals("http://ldm/requests/1/stats", AbstractLdmClient.getStatsPath(location));
+      assertEquals("http://ldm/requests/1/result?page=3",
+          AbstractLdmClient.getResultPagePath(location, 3));
+    }
+    assertEquals("/stats", AbstractLdmClient.getStatsPath("/"));
+    assertEquals("/stats", AbstractLdmClient.getStatsPath(null));
+  }
+}
@@ -0,0 +1,111 @@
+package de.samply.common.ldmclient;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import de.samply.common.ldmclient.aggregation.AggregationResult;
+import de.samply.common.ldmclient.aggregation.AggregationSpec;
+import de.samply.common.ldmclient.cache.InMemoryResultCacheBackend;
+import de.samply.common.ldmclient.simulator.LdmSimulatorConfig;
+import de.samply.common.ldmclient.simulator.LdmSimulatorExtension;
+import de.samply.common.ldmclient.simulator.ResponseBodies;
+import de.samply.share.model.common.View;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+class LdmClientViewAggregationTest {
+
+  private static final int PAGES = 5;
+  private static final int PAGE_SIZE = 7;
+  private static final int PATIENTS = PAGES * PAGE_SIZE;
+  private static final List<AggregationSpec> SPECS = Arrays.asList(
+      AggregationSpec.count("patients"),
+      AggregationSpec.groupBy("gender", ResponseBodies.GENDER)
+          .forEntityType(CompactingSimulatorClient.PATIENT),
+      AggregationSpec.groupBy("age", ResponseBodies.AGE, AggregationSpec.numericClasses(10)));
+
+  @RegisterExtension
+  final LdmSimulatorExtension ldm = new LdmSimulatorExtension(
+      LdmSimulatorConfig.builder().numberOfPages(PAGES).pageSize(PAGE_SIZE).build());
+
+  @Test
+  void aggregatesAllPages() throws Exception {
+    CompactingSimulatorClient client = createClient(ldm.configBuilder().build());
+    String location = client.postView(new View(), false);
+
+    AggregationResult result = client.aggregate(location, SPECS, 2);
+
+    assertEquals(PAGES, result.getPages());
+    assertEquals(PATIENTS, result.getTotal("patients"));
+    assertEquals(expectedCounts(ResponseBodies::gender), result.getCounts("gender"));
+    assertEquals(expectedCounts(patient -> {
+      int age = ResponseBodies.age(patient);
+      return (age - age % 10) + "-" + (age - age % 10 + 9);
+    }), result.getCounts("age"));
+    assertEquals(0, result.getMissing("gender"));
+  }
+
+  @Test
+  void usesPagesOfLocalCache() throws Exception {
+    CompactingSimulatorClient client = createClient(ldm.configBuilder()
+        .useCaching(true).compactCaching(true).build());
+    String location = client.postView(new View(), false);
+    for (int page = 0; page < PAGES; page++) {
+      client.getResultPage(location, page);
+    }
+
+    long calls = ldm.getSimulator().getHandledCalls();
+    AggregationResult result = client.aggregate(location, SPECS);
+
+    assertEquals(PATIENTS, result.getTotal("patients"));
+    assertEquals(expectedCounts(ResponseBodies::gender), result.getCounts("gender"));
+    // only the stats
+    assertEquals(1, ldm.getSimulator().getHandledCalls() - calls);
+  }
+
+  @Test
+  void usesAndFillsSharedCache() throws Exception {
+    LdmClientConfig config = ldm.configBuilder()
+        .remoteCache(new InMemoryResultCacheBackend(1 << 20)).build();
+    CompactingSimulatorClient client = createClient(config);
+    String location = client.postView(new View(), false);
+    client.aggregate(location, SPECS);
+
+    long calls = ldm.getSimulator().getHandledCalls();
+    AggregationResult result = createClient(config).aggregate(location, SPECS);
+
+    assertEquals(PATIENTS, result.getTotal("patients"));
+    assertEquals(expectedCounts(ResponseBodies::gender), result.getCounts("gender"));
+    // stats and pages come from the shared cache
+    assertEquals(0, ldm.getSimulator().getHandledCalls() - calls);
+  }
+
+  @Test
+  void rejectsDuplicateNames() throws Exception {
+    CompactingSimulatorClient client = createClient(ldm.configBuilder().build());
+
+    assertThrows(IllegalArgumentException.class, () -> client.aggregate("unused",
+        Arrays.asList(AggregationSpec.count("x"), AggregationSpec.count("x"))));
+  }
+
+  /**
+   * Count the patients of the simulated result per value.
+   */
+  private static Map<String, Long> expectedCounts(IntFunction<String> valueOfPatient) {
+    Map<String, Long> counts = new HashMap<>();
+    for (int patient = 0; patient < PATIENTS; patient++) {
+      counts.merge(valueOfPatient.apply(patient), 1L, Long::sum);
+    }
+    return counts;
+  }
+
+  private CompactingSimulatorClient createClient(LdmClientConfig config)
+      throws LdmClientException {
+    return new CompactingSimulatorClient(ldm.getHttpClient(), config);
+  }
+}
@@ -0,0 +1,93 @@
+package de.samply.common.ldmclient;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import de.samply.common.ldmclient.cache.InMemoryResultCacheBackend;
+import de.samply.common.ldmclient.simulator.LdmSimulatorConfig;
+import de.samply.common.ldmclient.simulator.LdmSimulatorExtension;
+import de.samply.common.ldmclient.simulator.ResponseBodies;
+import de.samply.share.model.common.Entity;
+import de.samply.share.model.common.QueryResult;
+import de.samply.share.model.common.View;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+class LdmClientViewCacheTest {
+
+  private static final int PAGES = 10;
+
+  @RegisterExtension
+  final LdmSimulatorExtension ldm = new LdmSimulatorExtension(
+      LdmSimulatorConfig.builder().numberOfPages(PAGES).pageSize(2).build());
+
+  @Test
+  void cacheSizeLimitsExpandedPages() throws Exception {
+    LdmClientConfig config = ldm.configBuilder().useCaching(true).cacheSize(2).build();
+
+    assertEquals(2 * PAGES, loadAllPagesTwice(createClient(config)));
+  }
+
+  @Test
+  void compactPagesAreWeighedByHeap() throws Exception {
+    LdmClientConfig config = ldm.configBuilder()
+        .useCaching(true).cacheSize(2).compactCaching(true).build();
+
+    assertEquals(PAGES, loadAllPagesTwice(createClient(config)));
+  }
+
+  @Test
+  void heapBudgetLimitsCompactPages() throws Exception {
+    LdmClientConfig config = ldm.configBuilder()
+        .useCaching(true).cacheSize(2).compactCaching(true).cacheMaximumBytes(1).build();
+
+    assertEquals(2 * PAGES, loadAllPagesTwice(createClient(config)));
+  }
+
+  @Test
+  void uncachedPagesAreNotCompacted() throws Exception {
+    LdmClientConfig config = ldm.configBuilder()
+        .compactCaching(true).remoteCache(new InMemoryResultCacheBackend(1 << 20)).build();
+    CompactingSimulatorClient client = createClient(config);
+    String location = client.postView(new View(), false);
+    client.getStatsOrError(location);
+
+    // the page as fetched, compacted only for the remote cache
+    QueryResult fetched = client.getResultPage(location, 0);
+    assertEquals(0, client.expandedPages.get());
+    long calls = ldm.getSimulator().getHandledCalls();
+    // the page from the remote cache, expanded by the compactor
+    QueryResult expanded = client.getResultPage(location, 0);
+    assertEquals(1, client.expandedPages.get());
+    assertEquals(calls, ldm.getSimulator().getHandledCalls());
+    assertEquals(2, expanded.getEntity().size());
+    for (int i = 0; i < 2; i++) {
+      Entity entity = expanded.getEntity().get(i);
+      assertEquals(fetched.getEntity().get(i).getId(), entity.getId());
+      assertEquals(ResponseBodies.GENDER, entity.getAttribute().get(0).getMdrKey());
+      assertEquals(ResponseBodies.gender(i), entity.getAttribute().get(0).getValue().getValue());
+    }
+  }
+
+  private CompactingSimulatorClient createClient(LdmClientConfig config)
+      throws LdmClientException {
+    return new CompactingSimulatorClient(ldm.getHttpClient(), config);
+  }
+
+  /**
+   * Read all pages twice in the same order.
+   *
+   * @return the number of pages that were loaded from the LDM
+   */
+  private int loadAllPagesTwice(CompactingSimulatorClient client) throws Exception {
+    String location = client.postView(new View(), false);
+    client.getStatsOrError(location);
+    long calls = ldm.getSimulator().getHandledCalls();
+    for (int round = 0; round < 2; round++) {
+      for (int page = 0; page < PAGES; page++) {
+        client.getResultPage(location, page);
+      }
+    }
+    // every page loaded from the LDM needs a stats and a result call
+    return (int) (ldm.getSimulator().getHandledCalls() - calls) / 2;
+  }
+}
@@ -0,0 +1,75 @@
+package de.samply.common.ldmclient;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import de.samply.common.ldmclient.simulator.LdmSimulatorExtension;
+import de.samply.common.ldmclient.simulator.SimulatorLdmClient;
+import de.samply.common.ldmclient.transport.LdmRequest;
+import de.samply.common.ldmclient.transport.RequestPriority;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.apache.http.client.methods.HttpGet;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+class LdmClientViewHeadersTest {
+
+  private static final int HEADERS = 500;
+
+  @RegisterExtension
+  final LdmSimulatorExtension ldm = new LdmSimulatorExtension();
+
+  @Test
+  void headersOfBuiltRequestsDoNotChange() throws Exception {
+    SimulatorLdmClient client = new SimulatorLdmClient(ldm.getHttpClient(),
+        ldm.configBuilder().httpHeader("h0", "0").build());
+    LdmRequest request = createGetRequest(client);
+
+    client.addHttpHeader("h1", "1");
+
+    assertEquals(1, request.getDefaultHeaders().size());
+    assertEquals(2, createGetRequest(client).getDefaultHeaders().size());
+    HttpGet httpGet = new HttpGet("http://ldm/info");
+    client.addHttpHeaders(httpGet);
+    assertEquals("1", httpGet.getFirstHeader("h1").getValue());
+    assertNull(httpGet.getFirstHeader("h2"));
+  }
+
+  @Test
+  void addHeaderWhileBuildingRequests() throws Exception {
+    SimulatorLdmClient client = new SimulatorLdmClient(ldm.getHttpClient(),
+        ldm.configBuilder().build());
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Future<Integer> builder = executor.submit(() -> {
+        int seen = 0;
+        while (seen < HEADERS) {
+          Map<String, String> headers = createGetRequest(client).getDefaultHeaders();
+          // headers are added in order, so every request sees a prefix of them
+          seen = headers.size();
+          for (int i = 0; i < seen; i++) {
+            assertEquals(String.valueOf(i), headers.get("h" + i));
+          }
+        }
+        return seen;
+      });
+      for (int i = 0; i < HEADERS; i++) {
+        client.addHttpHeader("h" + i, String.valueOf(i));
+      }
+
+      assertEquals(HEADERS, (int) builder.get(10, TimeUnit.SECONDS));
+      assertTrue(client.getConfig().getHttpHeaders().containsKey("h" + (HEADERS - 1)));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static LdmRequest createGetRequest(SimulatorLdmClient client) {
+    return client.createGetRequest("http://ldm/info", RequestPriority.INTERACTIVE);
+  }
+}
@@ -0,0 +1,158 @@
+package de.samply.common.ldmclient;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import de.samply.common.ldmclient.model.LdmQueryResult;
+import de.samply.common.ldmclient.simulator.ResponseBodies;
+import de.samply.common.ldmclient.simulator.SimulatorLdmClient;
+import de.samply.common.ldmclient.transport.Http2LdmTransport;
+import de.samply.share.model.common.QueryResult;
+import de.samply.share.model.common.View;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.EntityDetails;
+import org.apache.hc.core5.http.HttpRequest;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.Message;
+import org.apache.hc.core5.http.URIScheme;
+import org.apache.hc.core5.http.impl.bootstrap.HttpAsyncServer;
+import org.apache.hc.core5.http.message.BasicHttpResponse;
+import org.apache.hc.core5.http.nio.AsyncRequestConsumer;
+import org.apache.hc.core5.http.nio.AsyncServerRequestHandler;
+import org.apache.hc.core5.http.nio.entity.AsyncEntityProducers;
+import org.apache.hc.core5.http.nio.entity.StringAsyncEntityConsumer;
+import org.apache.hc.core5.http.nio.support.BasicRequestConsumer;
+import org.apache.hc.core5.http.nio.support.BasicResponseProducer;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.http.protocol.HttpCoreContext;
+import org.apache.hc.core5.http2.HttpVersionPolicy;
+import org.apache.hc.core5.http2.impl.nio.bootstrap.H2ServerBootstrap;
+import org.apache.hc.core5.io.CloseMode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Drives a view client over HTTP/2 against an LDM that answers like the simulator, with a short
+ * delay per response so that requests overlap.
+ */
+class LdmClientViewHttp2Test {
+
+  private static final int PAGES = 4;
+  private static final int PAGE_SIZE = 3;
+  private static final int QUERIES = 8;
+  private static final long DELAY_MILLIS = 20;
+
+  private final ResponseBodies bodies = new ResponseBodies.Default();
+  private final ScheduledExecutorService delays = Executors.newSingleThreadScheduledExecutor();
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private final AtomicInteger maxInFlight = new AtomicInteger();
+  private final Set<SocketAddress> clientAddresses = ConcurrentHashMap.newKeySet();
+
+  private HttpAsyncServer server;
+  private String baseUrl;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    server = H2ServerBootstrap.bootstrap()
+        .setVersionPolicy(HttpVersionPolicy.FORCE_HTTP_2)
+        .register("*", new AsyncServerRequestHandler<Message<HttpRequest, String>>() {
+          @Override
+          public AsyncRequestConsumer<Message<HttpRequest, String>> prepare(HttpRequest request,
+              EntityDetails entityDetails, HttpContext context) {
+            return new BasicRequestConsumer<>(
+                entityDetails == null ? null : new StringAsyncEntityConsumer());
+          }
+
+          @Override
+          public void handle(Message<HttpRequest, String> message, ResponseTrigger trigger,
+              HttpContext context) {
+            clientAddresses.add(
+                HttpCoreContext.adapt(context).getEndpointDetails().getRemoteAddress());
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            delays.schedule(() -> {
+              inFlight.decrementAndGet();
+              trigger.submitResponse(respond(message.getHead()), context);
+              return null;
+            }, DELAY_MILLIS, TimeUnit.MILLISECONDS);
+          }
+        }).create();
+    server.start();
+    InetSocketAddress address = (InetSocketAddress) server
+        .listen(new InetSocketAddress("127.0.0.1", 0), URIScheme.HTTP).get().getAddress();
+    baseUrl = "http://127.0.0.1:" + address.getPort() + "/";
+  }
+
+  @AfterEach
+  void tearDown() {
+    server.close(CloseMode.IMMEDIATE);
+    delays.shutdownNow();
+  }
+
+  @Test
+  void multiplexesConcurrentQueriesOverOneConnection() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(QUERIES);
+    try (Http2LdmTransport transport = new Http2LdmTransport()) {
+      SimulatorLdmClient client = new SimulatorLdmClient(transport,
+          LdmClientConfig.builder(baseUrl).build());
+      List<Callable<Void>> queries = new ArrayList<>();
+      for (int i = 0; i < QUERIES; i++) {
+        queries.add(() -> {
+          String location = client.postView(new View(), false);
+          LdmQueryResult stats = client.getStatsOrError(location);
+          assertTrue(stats.hasResult());
+          assertEquals(PAGES, stats.getResult().getNumberOfPages());
+          for (int page = 0; page < PAGES; page++) {
+            QueryResult resultPage = client.getResultPage(location, page);
+            assertEquals(PAGE_SIZE, resultPage.getEntity().size());
+            assertEquals(String.valueOf(page * PAGE_SIZE),
+                resultPage.getEntity().get(0).getId());
+          }
+          return null;
+        });
+      }
+      for (Future<Void> query : executor.invokeAll(queries)) {
+        query.get();
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    assertEquals(1, clientAddresses.size());
+    assertTrue(maxInFlight.get() > 1, "requests did not overlap");
+  }
+
+  private BasicResponseProducer respond(HttpRequest request) {
+    String[] segments = request.getPath().substring(1).split("[/?]");
+    if ("POST".equals(request.getMethod()) && "requests".equals(segments[0])) {
+      HttpResponse response = new BasicHttpResponse(201);
+      response.addHeader("Location", baseUrl + "requests/" + UUID.randomUUID());
+      return new BasicResponseProducer(response);
+    } else if (segments.length == 3 && "stats".equals(segments[2])) {
+      return ok(bodies.stats(segments[1], PAGES * PAGE_SIZE, PAGES));
+    } else if (segments.length == 4 && "result".equals(segments[2])) {
+      int page = Integer.parseInt(segments[3].substring("page=".length()));
+      return ok(bodies.resultPage(segments[1], page, PAGE_SIZE));
+    }
+    return new BasicResponseProducer(new BasicHttpResponse(404));
+  }
+
+  private static BasicResponseProducer ok(String body) {
+    return new BasicResponseProducer(new BasicHttpResponse(200),
+        AsyncEntityProducers.create(body, ContentType.APPLICATION_XML));
+  }
+}
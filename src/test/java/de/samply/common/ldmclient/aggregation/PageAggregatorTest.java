@@ -0,0 +1,99 @@
+package de.samply.common.ldmclient.aggregation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import de.samply.common.ldmclient.model.CompactResultPage;
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.jupiter.api.Test;
+
+class PageAggregatorTest {
+
+  private static final String GENDER = "urn:dktk:dataelement:1:3";
+  private static final String AGE = "urn:dktk:dataelement:28:1";
+
+  @Test
+  void countsAndGroups() {
+    AggregationResult result = PageAggregator.aggregate(page(), Arrays.asList(
+        AggregationSpec.count("patients").forEntityType("Patient"),
+        AggregationSpec.count("entities"),
+        AggregationSpec.groupBy("gender", GENDER).forEntityType("Patient"),
+        AggregationSpec.groupBy("age", AGE, AggregationSpec.numericClasses(10))));
+
+    assertEquals(3, result.getTotal("patients"));
+    assertEquals(4, result.getTotal("entities"));
+    assertEquals(2L, result.getCounts("gender").get("M"));
+    assertEquals(1L, result.getCounts("gender").get("W"));
+    assertEquals(0, result.getMissing("gender"));
+    assertEquals(2L, result.getCounts("age").get("30-39"));
+    assertEquals(2, result.getMissing("age"));
+  }
+
+  @Test
+  void countsEntityOncePerClass() {
+    CompactResultPage.Builder builder = CompactResultPage.builder("result-1");
+    builder.addEntity("Patient", "p1", CompactResultPage.NO_PARENT);
+    builder.addAttribute(AGE, "31").addAttribute(AGE, "35").addAttribute(AGE, "42");
+    builder.addEntity("Patient", "p2", CompactResultPage.NO_PARENT);
+    builder.addAttribute(AGE, "35");
+    builder.addAttribute("urn:dktk:dataelement:29:2", "C34.1")
+        .addAttribute("urn:dktk:dataelement:29:2", "C34.9");
+
+    AggregationResult result = PageAggregator.aggregate(builder.build(), Arrays.asList(
+        AggregationSpec.groupBy("age", AGE, AggregationSpec.numericClasses(10)),
+        AggregationSpec.groupBy("diagnosis", "urn:dktk:dataelement:29:2",
+            value -> value.substring(0, 3))));
+
+    assertEquals(2L, result.getCounts("age").get("30-39"));
+    assertEquals(1L, result.getCounts("age").get("40-49"));
+    assertEquals(Collections.singletonMap("C34", 1L), result.getCounts("diagnosis"));
+    assertEquals(1, result.getMissing("diagnosis"));
+  }
+
+  @Test
+  void keepsEmptyValuesApartFromMissingValues() {
+    CompactResultPage.Builder builder = CompactResultPage.builder("result-1");
+    builder.addEntity("Patient", "p1", CompactResultPage.NO_PARENT);
+    builder.addAttribute(GENDER, "");
+    builder.addEntity("Patient", "p2", CompactResultPage.NO_PARENT);
+
+    AggregationResult result = PageAggregator.aggregate(builder.build(),
+        Collections.singletonList(AggregationSpec.groupBy("gender", GENDER)));
+
+    assertEquals(Collections.singletonMap("", 1L), result.getCounts("gender"));
+    assertEquals(1, result.getMissing("gender"));
+  }
+
+  @Test
+  void mergesPages() {
+    AggregationResult page = PageAggregator.aggregate(page(), Arrays.asList(
+        AggregationSpec.count("entities"), AggregationSpec.groupBy("age", AGE)));
+
+    AggregationResult result = AggregationResult.empty().merge(page).merge(page);
+
+    assertEquals(2, result.getPages());
+    assertEquals(8, result.getTotal("entities"));
+    assertEquals(2L, result.getCounts("age").get("34"));
+    assertEquals(4, result.getMissing("age"));
+  }
+
+  @Test
+  void rejectsDuplicateNames() {
+    assertThrows(IllegalArgumentException.class, () -> PageAggregator.aggregate(page(),
+        Arrays.asList(AggregationSpec.count("x"), AggregationSpec.groupBy("x", GENDER))));
+  }
+
+  private static CompactResultPage page() {
+    CompactResultPage.Builder builder = CompactResultPage.builder("result-1");
+    int patient = builder.addEntity("Patient", "p1", CompactResultPage.NO_PARENT);
+    builder.addAttribute(GENDER, "M").addAttribute(AGE, "34");
+    builder.addEntity("Sample", "s1", patient);
+    builder.addEntity("Patient", "p2", CompactResultPage.NO_PARENT);
+    builder.addAttribute(GENDER, "W").addAttribute(AGE, "37");
+    builder.addEntity("Patient", "p3", CompactResultPage.NO_PARENT);
+    // a repeated value is counted once
+    builder.addAttribute(GENDER, "M").addAttribute(GENDER, "M");
+    return builder.build();
+  }
+}
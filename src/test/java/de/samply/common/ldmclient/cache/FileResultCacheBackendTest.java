@@ -0,0 +1,110 @@
+package de.samply.common.ldmclient.cache;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class FileResultCacheBackendTest {
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void putGetAndInvalidate() throws IOException {
+    FileResultCacheBackend backend = new FileResultCacheBackend(directory.resolve("cache"));
+
+    assertNull(backend.get("page|a|0"));
+    backend.put("page|a|0", new byte[]{1, 2});
+    backend.put("page|a|0", new byte[]{3});
+    backend.put("page|a|1", new byte[0]);
+
+    assertArrayEquals(new byte[]{3}, backend.get("page|a|0"));
+    assertArrayEquals(new byte[0], backend.get("page|a|1"));
+    // no temporary files are left behind
+    assertEquals(2, countFiles(directory.resolve("cache")));
+
+    backend.invalidateAll();
+
+    assertNull(backend.get("page|a|0"));
+    assertEquals(0, countFiles(directory.resolve("cache")));
+  }
+
+  @Test
+  void sharesValuesBetweenInstances() throws IOException {
+    new FileResultCacheBackend(directory).put("stats|a", new byte[]{1});
+
+    assertArrayEquals(new byte[]{1}, new FileResultCacheBackend(directory).get("stats|a"));
+  }
+
+  @Test
+  void deletesOldestValuesBeyondMaximumSize() throws IOException {
+    FileResultCacheBackend backend = new FileResultCacheBackend(directory, 100,
+        FileResultCacheBackend.UNLIMITED);
+    for (int i = 0; i < 5; i++) {
+      backend.put("page|a|" + i, new byte[20]);
+      ageFiles(Duration.ofMinutes(1));
+    }
+
+    // the sixth value exceeds the maximum size, three quarters of it are kept
+    backend.put("page|a|5", new byte[20]);
+
+    assertEquals(3, countFiles(directory));
+    assertNull(backend.get("page|a|2"));
+    assertArrayEquals(new byte[20], backend.get("page|a|3"));
+    assertArrayEquals(new byte[20], backend.get("page|a|5"));
+  }
+
+  @Test
+  void expiredValuesAreMissesAndDeleted() throws IOException {
+    FileResultCacheBackend backend = new FileResultCacheBackend(directory,
+        FileResultCacheBackend.UNLIMITED, Duration.ofHours(1).toMillis());
+    backend.put("stats|a", new byte[]{1});
+    backend.put("stats|b", new byte[]{2});
+    ageFiles(Duration.ofHours(2));
+    backend.put("stats|c", new byte[]{3});
+
+    assertNull(backend.get("stats|a"));
+    assertEquals(2, countFiles(directory));
+    backend.cleanUp();
+    assertEquals(1, countFiles(directory));
+    assertArrayEquals(new byte[]{3}, backend.get("stats|c"));
+  }
+
+  @Test
+  void deletesExpiredValuesOnCreation() throws IOException {
+    new FileResultCacheBackend(directory).put("stats|a", new byte[]{1});
+    ageFiles(Duration.ofHours(2));
+
+    new FileResultCacheBackend(directory, FileResultCacheBackend.UNLIMITED,
+        Duration.ofHours(1).toMillis());
+
+    assertEquals(0, countFiles(directory));
+  }
+
+  /**
+   * Move the modification time of all files back.
+   */
+  private void ageFiles(Duration age) throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      for (Path file : (Iterable<Path>) files::iterator) {
+        Files.setLastModifiedTime(file, FileTime.fromMillis(
+            Files.getLastModifiedTime(file).toMillis() - age.toMillis()));
+      }
+    }
+  }
+
+  private static long countFiles(Path directory) throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files.count();
+    }
+  }
+}
@@ -0,0 +1,40 @@
+package de.samply.common.ldmclient.cache;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class InMemoryResultCacheBackendTest {
+
+  @Test
+  void putGetAndInvalidate() {
+    InMemoryResultCacheBackend backend = new InMemoryResultCacheBackend(1024);
+
+    assertNull(backend.get("page|a|0"));
+    backend.put("page|a|0", new byte[]{1, 2});
+    backend.put("page|a|0", new byte[]{3});
+
+    assertArrayEquals(new byte[]{3}, backend.get("page|a|0"));
+
+    backend.invalidateAll();
+
+    assertNull(backend.get("page|a|0"));
+  }
+
+  @Test
+  void boundedBySizeOfValues() {
+    InMemoryResultCacheBackend backend = new InMemoryResultCacheBackend(1024);
+
+    for (int page = 0; page < 100; page++) {
+      backend.put("page|a|" + page, new byte[100]);
+    }
+
+    int present = 0;
+    for (int page = 0; page < 100; page++) {
+      present += backend.get("page|a|" + page) == null ? 0 : 1;
+    }
+    assertTrue(present <= 10, "Too many values: " + present);
+  }
+}
@@ -0,0 +1,119 @@
+package de.samply.common.ldmclient.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import de.samply.common.ldmclient.model.CompactResultPage;
+import de.samply.common.ldmclient.transport.LdmResponse;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class RemoteResultCacheTest {
+
+  private static final String LOCATION = "http://ldm/requests/1";
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void pagesAndStatsInFiles() throws IOException {
+    assertRoundTrip(new RemoteResultCache(new FileResultCacheBackend(directory)));
+  }
+
+  @Test
+  void pagesAndStatsInMemory() {
+    assertRoundTrip(new RemoteResultCache(new InMemoryResultCacheBackend(1 << 20)));
+  }
+
+  @Test
+  void corruptValuesAreMisses() {
+    InMemoryResultCacheBackend backend = new InMemoryResultCacheBackend(1 << 20);
+    RemoteResultCache cache = new RemoteResultCache(backend);
+    cache.putPage(LOCATION, 0, page());
+    cache.putStats(LOCATION, 200, "<stats/>");
+    for (String key : new String[]{"page|" + LOCATION + "|0", "stats|" + LOCATION}) {
+      byte[] bytes = backend.get(key);
+      bytes[0] = 42;
+    }
+    // a huge dictionary in the first cached page, after the header of the value
+    backend.put("page|" + LOCATION + "|1",
+        new byte[]{2, 0, 0, 0, 0, 0, 0, 0, 0, 1, 0, -1, -1, -1, -1, 7});
+
+    assertNull(cache.getPage(LOCATION, 0));
+    assertNull(cache.getPage(LOCATION, 1));
+    assertNull(cache.getStats(LOCATION));
+  }
+
+  @Test
+  void expiredValuesAreMisses() {
+    AtomicLong now = new AtomicLong(1_000_000);
+    RemoteResultCache cache = new RemoteResultCache(new InMemoryResultCacheBackend(1 << 20),
+        1000, now::get);
+    cache.putPage(LOCATION, 0, page());
+    cache.putStats(LOCATION, 200, "<stats/>");
+
+    now.addAndGet(999);
+    assertEquals("p1", cache.getPage(LOCATION, 0).getEntityId(0));
+    assertEquals(200, cache.getStats(LOCATION).getStatusCode());
+
+    now.addAndGet(1);
+    assertNull(cache.getPage(LOCATION, 0));
+    assertNull(cache.getStats(LOCATION));
+
+    // written again, e.g. for a new request with the same id
+    cache.putStats(LOCATION, 422, "<error/>");
+    assertEquals(422, cache.getStats(LOCATION).getStatusCode());
+  }
+
+  @Test
+  void failuresOfBackendAreMisses() {
+    RemoteResultCache cache = new RemoteResultCache(new ResultCacheBackend() {
+      @Override
+      public byte[] get(String key) {
+        throw new IllegalStateException("unavailable");
+      }
+
+      @Override
+      public void put(String key, byte[] value) throws IOException {
+        throw new IOException("unavailable");
+      }
+
+      @Override
+      public void invalidateAll() {
+      }
+    });
+
+    cache.putPage(LOCATION, 0, page());
+    cache.putStats(LOCATION, 200, "<stats/>");
+
+    assertNull(cache.getPage(LOCATION, 0));
+    assertNull(cache.getStats(LOCATION));
+  }
+
+  private static void assertRoundTrip(RemoteResultCache cache) {
+    assertNull(cache.getPage(LOCATION, 0));
+    assertNull(cache.getStats(LOCATION));
+
+    cache.putPage(LOCATION, 0, page());
+    cache.putStats(LOCATION, 422, "<error>ä</error>");
+
+    CompactResultPage page = cache.getPage(LOCATION, 0);
+    assertEquals("result-1", page.getResultId());
+    assertEquals("p1", page.getEntityId(0));
+    assertEquals("M", page.getValue(0));
+    assertNull(cache.getPage(LOCATION, 1));
+    LdmResponse stats = cache.getStats(LOCATION);
+    assertEquals(422, stats.getStatusCode());
+    assertEquals("<error>ä</error>", stats.getBody());
+  }
+
+  private static CompactResultPage page() {
+    CompactResultPage.Builder builder = CompactResultPage.builder("result-1");
+    builder.addEntity("Patient", "p1", CompactResultPage.NO_PARENT);
+    builder.addAttribute("urn:dktk:dataelement:1:3", "M");
+    return builder.build();
+  }
+}
@@ -0,0 +1,137 @@
+package de.samply.common.ldmclient.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+
+class CompactResultPageCodecTest {
+
+  @Test
+  void roundTrip() {
+    CompactResultPage.Builder builder = CompactResultPage.builder("result-1");
+    int patient = builder.addEntity("Patient", "p1", CompactResultPage.NO_PARENT);
+    builder.addAttribute("urn:dktk:dataelement:1:3", "M")
+        .addAttribute("urn:dktk:dataelement:28:1", null);
+    builder.addEntity("Sample", "s1", patient);
+    builder.addAttribute("urn:dktk:dataelement:1:3", "Größe ✓");
+    builder.addEntity(null, "s2", patient);
+    CompactResultPage page = builder.build();
+
+    CompactResultPage decoded = CompactResultPageCodec.decode(CompactResultPageCodec.encode(page));
+
+    assertEquals("result-1", decoded.getResultId());
+    assertEquals(page.getDictionarySize(), decoded.getDictionarySize());
+    assertEquals(3, decoded.getEntityCount());
+    assertEquals(3, decoded.getAttributeCount());
+    for (int entity = 0; entity < page.getEntityCount(); entity++) {
+      assertEquals(page.getEntityType(entity), decoded.getEntityType(entity));
+      assertEquals(page.getEntityId(entity), decoded.getEntityId(entity));
+      assertEquals(page.getParent(entity), decoded.getParent(entity));
+      assertEquals(page.getAttributeStart(entity), decoded.getAttributeStart(entity));
+      assertEquals(page.getAttributeEnd(entity), decoded.getAttributeEnd(entity));
+    }
+    for (int attribute = 0; attribute < page.getAttributeCount(); attribute++) {
+      assertEquals(page.getMdrKey(attribute), decoded.getMdrKey(attribute));
+      assertEquals(page.getValue(attribute), decoded.getValue(attribute));
+    }
+  }
+
+  @Test
+  void roundTripOfEmptyPage() {
+    CompactResultPage decoded = CompactResultPageCodec.decode(
+        CompactResultPageCodec.encode(CompactResultPage.builder(null).build()));
+
+    assertNull(decoded.getResultId());
+    assertEquals(0, decoded.getEntityCount());
+    assertEquals(0, decoded.getAttributeCount());
+  }
+
+  @Test
+  void rejectsTruncatedPages() {
+    CompactResultPage.Builder builder = CompactResultPage.builder("result-1");
+    builder.addEntity("Patient", "p1", CompactResultPage.NO_PARENT);
+    builder.addAttribute("urn:dktk:dataelement:1:3", "M");
+    byte[] bytes = CompactResultPageCodec.encode(builder.build());
+
+    for (int length = 0; length < bytes.length; length++) {
+      byte[] truncated = Arrays.copyOf(bytes, length);
+      assertThrows(IllegalArgumentException.class, () -> CompactResultPageCodec.decode(truncated));
+    }
+  }
+
+  @Test
+  void rejectsTrailingBytes() {
+    byte[] bytes = CompactResultPageCodec.encode(CompactResultPage.builder("result-1").build());
+
+    assertInvalid(Arrays.copyOf(bytes, bytes.length + 1));
+  }
+
+  @Test
+  void rejectsUnknownVersion() {
+    assertInvalid(2, 0, 0, 0);
+  }
+
+  @Test
+  void rejectsCountsBeyondInput() {
+    // dictionary of Integer.MAX_VALUE strings
+    assertInvalid(1, 0, 0xFF, 0xFF, 0xFF, 0xFF, 0x07);
+    // dictionary of -1 strings
+    assertInvalid(1, 0, 0xFF, 0xFF, 0xFF, 0xFF, 0x0F);
+    // two entities, but only bytes for one
+    assertInvalid(1, 0, 0, 2, 0, 0, 0, 0);
+    // an entity with Integer.MAX_VALUE attributes
+    assertInvalid(1, 0, 0, 1, 0, 0, 0, 0xFF, 0xFF, 0xFF, 0xFF, 0x07);
+    // an entity with -1 attributes
+    assertInvalid(1, 0, 0, 1, 0, 0, 0, 0xFF, 0xFF, 0xFF, 0xFF, 0x0F);
+    // a string of Integer.MAX_VALUE bytes
+    assertInvalid(1, 0xFF, 0xFF, 0xFF, 0xFF, 0x07);
+  }
+
+  @Test
+  void rejectsCodesOutOfRange() {
+    // dictionary "a", entity type code 1
+    assertInvalid(1, 0, 1, 2, 'a', 1, 2, 0, 0, 0);
+    // dictionary "a", entity id code 1
+    assertInvalid(1, 0, 1, 2, 'a', 1, 0, 2, 0, 0);
+    // entity is its own parent
+    assertInvalid(1, 0, 1, 2, 'a', 1, 0, 0, 1, 0);
+    // attribute key code 1
+    assertInvalid(1, 0, 1, 2, 'a', 1, 0, 0, 0, 1, 2, 0);
+    // attribute value code 1
+    assertInvalid(1, 0, 1, 2, 'a', 1, 0, 0, 0, 1, 0, 2);
+    // null in dictionary
+    assertInvalid(1, 0, 1, 0, 1, 1, 0, 0, 0);
+  }
+
+  @Test
+  void acceptsValidHandWrittenPage() {
+    CompactResultPage page = CompactResultPageCodec.decode(
+        bytes(1, 0, 1, 2, 'a', 2, 1, 1, 0, 1, 0, 1, 1, 0, 1, 0));
+
+    assertEquals(2, page.getEntityCount());
+    assertEquals("a", page.getEntityType(0));
+    assertEquals(0, page.getParent(1));
+    assertEquals(1, page.getAttributeStart(1));
+    assertEquals("a", page.getMdrKey(0));
+    assertNull(page.getValue(0));
+  }
+
+  private static void assertInvalid(int... bytes) {
+    assertInvalid(bytes(bytes));
+  }
+
+  private static void assertInvalid(byte[] bytes) {
+    assertThrows(IllegalArgumentException.class, () -> CompactResultPageCodec.decode(bytes));
+  }
+
+  private static byte[] bytes(int... values) {
+    byte[] bytes = new byte[values.length];
+    for (int i = 0; i < values.length; i++) {
+      bytes[i] = (byte) values[i];
+    }
+    return bytes;
+  }
+}
@@ -0,0 +1,105 @@
+package de.samply.common.ldmclient.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class CompactResultPageTest {
+
+  @Test
+  void buildsEntitiesWithParentsAndAttributes() {
+    CompactResultPage.Builder builder = CompactResultPage.builder("result-1");
+    int patient = builder.addEntity("Patient", "p1", CompactResultPage.NO_PARENT);
+    builder.addAttribute("urn:dktk:dataelement:1:3", "M")
+        .addAttribute("urn:dktk:dataelement:28:1", "42");
+    int sample = builder.addEntity("Sample", "s1", patient);
+    builder.addAttribute("urn:dktk:dataelement:1:3", "W");
+    builder.addEntity("Sample", "s2", patient);
+
+    CompactResultPage page = builder.build();
+
+    assertEquals("result-1", page.getResultId());
+    assertEquals(3, page.getEntityCount());
+    assertEquals(3, page.getAttributeCount());
+    assertEquals(CompactResultPage.NO_PARENT, page.getParent(patient));
+    assertEquals(patient, page.getParent(sample));
+    assertEquals(patient, page.getParent(2));
+    assertEquals("Sample", page.getEntityType(sample));
+    assertEquals("s1", page.getEntityId(sample));
+
+    assertEquals(0, page.getAttributeStart(patient));
+    assertEquals(2, page.getAttributeEnd(patient));
+    assertEquals(2, page.getAttributeStart(sample));
+    assertEquals(3, page.getAttributeEnd(sample));
+    assertEquals(3, page.getAttributeStart(2));
+    assertEquals(3, page.getAttributeEnd(2));
+    assertEquals("42", page.getValue(1));
+    assertEquals("W", page.getValue(2));
+    // equal strings share one dictionary entry
+    assertEquals(page.getMdrKeyCode(0), page.getMdrKeyCode(2));
+    assertEquals(page.getMdrKeyCode(0), page.codeOf("urn:dktk:dataelement:1:3"));
+  }
+
+  @Test
+  void keepsNullValues() {
+    CompactResultPage.Builder builder = CompactResultPage.builder(null);
+    builder.addEntity(null, "p1", CompactResultPage.NO_PARENT);
+    builder.addAttribute("urn:dktk:dataelement:1:3", null);
+
+    CompactResultPage page = builder.build();
+
+    assertNull(page.getResultId());
+    assertNull(page.getEntityType(0));
+    assertEquals(CompactResultPage.NULL_VALUE, page.getEntityTypeCode(0));
+    assertNull(page.getValue(0));
+    assertEquals(CompactResultPage.NULL_VALUE, page.getValueCode(0));
+    assertEquals(CompactResultPage.NULL_VALUE, page.codeOf(null));
+    assertEquals(2, page.getDictionarySize());
+  }
+
+  @Test
+  void growsBeyondInitialCapacity() {
+    CompactResultPage.Builder builder = CompactResultPage.builder("result-1");
+    int entities = 1000;
+    for (int i = 0; i < entities; i++) {
+      builder.addEntity("Patient", "p" + i, i == 0 ? CompactResultPage.NO_PARENT : i - 1);
+      builder.addAttribute("urn:key:" + (i % 7), "value" + i);
+      builder.addAttribute("urn:key:" + (i % 3), null);
+    }
+
+    CompactResultPage page = builder.build();
+
+    assertEquals(entities, page.getEntityCount());
+    assertEquals(2 * entities, page.getAttributeCount());
+    for (int i = 0; i < entities; i++) {
+      assertEquals("p" + i, page.getEntityId(i));
+      assertEquals(i - 1, page.getParent(i));
+      assertEquals(2 * i, page.getAttributeStart(i));
+      assertEquals(2 * i + 2, page.getAttributeEnd(i));
+      assertEquals("urn:key:" + (i % 7), page.getMdrKey(2 * i));
+      assertEquals("value" + i, page.getValue(2 * i));
+      assertNull(page.getValue(2 * i + 1));
+    }
+    // Patient, p0..p999, value0..value999 and urn:key:0..6
+    assertEquals(1 + 2 * entities + 7, page.getDictionarySize());
+    assertTrue(page.estimateSizeInBytes() > 0);
+  }
+
+  @Test
+  void rejectsUnknownParent() {
+    CompactResultPage.Builder builder = CompactResultPage.builder("result-1");
+    builder.addEntity("Patient", "p1", CompactResultPage.NO_PARENT);
+
+    assertThrows(IndexOutOfBoundsException.class, () -> builder.addEntity("Sample", "s1", 1));
+  }
+
+  @Test
+  void rejectsAttributeBeforeEntity() {
+    CompactResultPage.Builder builder = CompactResultPage.builder("result-1");
+
+    assertThrows(IllegalStateException.class, () -> builder.addAttribute("urn:key:1", "A"));
+  }
+}
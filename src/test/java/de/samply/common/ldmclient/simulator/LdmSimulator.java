@@ -0,0 +1,232 @@
+package de.samply.common.ldmclient.simulator;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Embedded http server that simulates a local datamanagement (CentraXX, Samply Store or Blaze).
+ *
+ * <p>Served endpoints (relative to the context path):
+ * <ul>
+ *   <li>POST requests - creates a request, answers 201 with its location</li>
+ *   <li>GET requests/{id}/stats - 202 while busy, then 200 with statistics or 422 with an
+ *   error</li>
+ *   <li>GET/HEAD requests/{id}/result?page=N - 200 with the result page, 404 if out of range</li>
+ *   <li>POST Library - answers 201</li>
+ *   <li>POST Measure - answers 201 with the location of the measure</li>
+ * </ul>
+ */
+public class LdmSimulator implements AutoCloseable {
+
+  private static final String PATH_REQUESTS = "requests";
+  private static final String PATH_STATS = "stats";
+  private static final String PATH_RESULT = "result";
+  private static final String PARAM_PAGE = "page=";
+
+  private final LdmSimulatorConfig config;
+  private final HttpServer server;
+  private final ExecutorService executor;
+  private final Map<String, SimulatedRequest> requests = new ConcurrentHashMap<>();
+  private final AtomicLong handledCalls = new AtomicLong();
+  private final AtomicLong injectedFailures = new AtomicLong();
+
+  /**
+   * Create a simulator on a free port of the loopback interface.
+   *
+   * @param config  the simulator configuration
+   * @param threads the number of server threads
+   * @throws IOException if the server could not be bound
+   */
+  public LdmSimulator(LdmSimulatorConfig config, int threads) throws IOException {
+    this.config = config;
+    this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    this.executor = Executors.newFixedThreadPool(threads);
+    this.server.setExecutor(executor);
+    this.server.createContext(config.getContextPath(), this::handle);
+  }
+
+  public LdmSimulator start() {
+    server.start();
+    return this;
+  }
+
+  /**
+   * Get the base url of the simulated LDM, ending with a slash.
+   *
+   * @return the base url
+   */
+  public String getBaseUrl() {
+    return "http://127.0.0.1:" + server.getAddress().getPort() + config.getContextPath();
+  }
+
+  public long getHandledCalls() {
+    return handledCalls.get();
+  }
+
+  public long getInjectedFailures() {
+    return injectedFailures.get();
+  }
+
+  public int getRequestCount() {
+    return requests.size();
+  }
+
+  @Override
+  public void close() {
+    server.stop(0);
+    executor.shutdownNow();
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    handledCalls.incrementAndGet();
+    try (InputStream in = exchange.getRequestBody()) {
+      while (in.read() != -1) {
+        // drain request body so the connection can be reused
+      }
+    }
+    simulateLatency();
+
+    if (config.getFailureRate() > 0
+        && ThreadLocalRandom.current().nextDouble() < config.getFailureRate()) {
+      injectedFailures.incrementAndGet();
+      respond(exchange, config.getFailureStatusCode(), null);
+      return;
+    }
+
+    String method = exchange.getRequestMethod();
+    String path = exchange.getRequestURI().getPath().substring(config.getContextPath().length());
+    String query = exchange.getRequestURI().getQuery();
+    String[] segments = path.split("/");
+
+    if ("POST".equals(method) && segments.length == 1) {
+      handlePost(exchange, segments[0]);
+    } else if (segments.length == 3 && PATH_REQUESTS.equals(segments[0])) {
+      SimulatedRequest request = requests.get(segments[1]);
+      if (request == null) {
+        respond(exchange, 404, null);
+      } else if (PATH_STATS.equals(segments[2]) && "GET".equals(method)) {
+        handleStats(exchange, request);
+      } else if (PATH_RESULT.equals(segments[2])) {
+        handleResultPage(exchange, request, query, "HEAD".equals(method));
+      } else {
+        respond(exchange, 405, null);
+      }
+    } else {
+      respond(exchange, 404, null);
+    }
+  }
+
+  private void handlePost(HttpExchange exchange, String resource) throws IOException {
+    switch (resource) {
+      case PATH_REQUESTS:
+        String id = UUID.randomUUID().toString();
+        boolean error = config.getErrorRate() > 0
+            && ThreadLocalRandom.current().nextDouble() < config.getErrorRate();
+        requests.put(id, new SimulatedRequest(id, error));
+        exchange.getResponseHeaders().add("Location", getBaseUrl() + PATH_REQUESTS + "/" + id);
+        respond(exchange, 201, null);
+        break;
+      case "Library":
+        respond(exchange, 201, null);
+        break;
+      case "Measure":
+        exchange.getResponseHeaders().add("Location",
+            getBaseUrl() + "Measure/" + UUID.randomUUID() + "/_history/1");
+        respond(exchange, 201, null);
+        break;
+      default:
+        respond(exchange, 404, null);
+    }
+  }
+
+  private void handleStats(HttpExchange exchange, SimulatedRequest request) throws IOException {
+    if (request.polls.incrementAndGet() <= config.getBusyPolls()) {
+      respond(exchange, 202, null);
+    } else if (request.error) {
+      respond(exchange, 422, config.getResponseBodies().error(request.id));
+    } else {
+      respond(exchange, 200, config.getResponseBodies()
+          .stats(request.id, config.getTotalSize(), config.getNumberOfPages()));
+    }
+  }
+
+  private void handleResultPage(HttpExchange exchange, SimulatedRequest request, String query,
+      boolean headOnly) throws IOException {
+    int page = parsePage(query);
+    if (request.error || page < 0 || page >= config.getNumberOfPages()) {
+      respond(exchange, 404, null);
+    } else if (headOnly) {
+      exchange.sendResponseHeaders(200, -1);
+      exchange.close();
+    } else {
+      respond(exchange, 200,
+          config.getResponseBodies().resultPage(request.id, page, config.getPageSize()));
+    }
+  }
+
+  private static int parsePage(String query) {
+    if (query == null || !query.startsWith(PARAM_PAGE)) {
+      return -1;
+    }
+    try {
+      return Integer.parseInt(query.substring(PARAM_PAGE.length()));
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+
+  private void simulateLatency() {
+    long latency = config.getLatencyMillis();
+    if (config.getLatencyJitterMillis() > 0) {
+      latency += ThreadLocalRandom.current().nextLong(config.getLatencyJitterMillis() + 1);
+    }
+    if (latency > 0) {
+      try {
+        TimeUnit.MILLISECONDS.sleep(latency);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  private static void respond(HttpExchange exchange, int statusCode, String body)
+      throws IOException {
+    if (body == null) {
+      exchange.sendResponseHeaders(statusCode, -1);
+      exchange.close();
+      return;
+    }
+    byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+    exchange.getResponseHeaders().add("Content-Type", "application/xml; charset=UTF-8");
+    exchange.sendResponseHeaders(statusCode, bytes.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(bytes);
+    }
+  }
+
+  private static final class SimulatedRequest {
+
+    private final String id;
+    private final boolean error;
+    private final AtomicInteger polls = new AtomicInteger();
+
+    private SimulatedRequest(String id, boolean error) {
+      this.id = id;
+      this.error = error;
+    }
+  }
+}
@@ -0,0 +1,193 @@
+package de.samply.common.ldmclient.simulator;
+
+/**
+ * Immutable configuration of an {@link LdmSimulator}.
+ */
+public final class LdmSimulatorConfig {
+
+  private final String contextPath;
+  private final long latencyMillis;
+  private final long latencyJitterMillis;
+  private final int busyPolls;
+  private final int numberOfPages;
+  private final int pageSize;
+  private final int totalSize;
+  private final double errorRate;
+  private final double failureRate;
+  private final int failureStatusCode;
+  private final ResponseBodies responseBodies;
+
+  private LdmSimulatorConfig(Builder builder) {
+    this.contextPath = builder.contextPath;
+    this.latencyMillis = builder.latencyMillis;
+    this.latencyJitterMillis = builder.latencyJitterMillis;
+    this.busyPolls = builder.busyPolls;
+    this.numberOfPages = builder.numberOfPages;
+    this.pageSize = builder.pageSize;
+    this.totalSize = builder.totalSize >= 0 ? builder.totalSize
+        : builder.numberOfPages * builder.pageSize;
+    this.errorRate = builder.errorRate;
+    this.failureRate = builder.failureRate;
+    this.failureStatusCode = builder.failureStatusCode;
+    this.responseBodies = builder.responseBodies;
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  public String getContextPath() {
+    return contextPath;
+  }
+
+  public long getLatencyMillis() {
+    return latencyMillis;
+  }
+
+  public long getLatencyJitterMillis() {
+    return latencyJitterMillis;
+  }
+
+  public int getBusyPolls() {
+    return busyPolls;
+  }
+
+  public int getNumberOfPages() {
+    return numberOfPages;
+  }
+
+  public int getPageSize() {
+    return pageSize;
+  }
+
+  public int getTotalSize() {
+    return totalSize;
+  }
+
+  public double getErrorRate() {
+    return errorRate;
+  }
+
+  public double getFailureRate() {
+    return failureRate;
+  }
+
+  public int getFailureStatusCode() {
+    return failureStatusCode;
+  }
+
+  public ResponseBodies getResponseBodies() {
+    return responseBodies;
+  }
+
+  public static final class Builder {
+
+    private String contextPath = "/";
+    private long latencyMillis;
+    private long latencyJitterMillis;
+    private int busyPolls;
+    private int numberOfPages = 1;
+    private int pageSize = 50;
+    private int totalSize = -1;
+    private double errorRate;
+    private double failureRate;
+    private int failureStatusCode = 500;
+    private ResponseBodies responseBodies = new ResponseBodies.Default();
+
+    private Builder() {
+    }
+
+    /**
+     * Set the path under which the simulated LDM is served, e.g. "/centraxx/rest/".
+     *
+     * @param contextPath the context path
+     * @return this builder
+     */
+    public Builder contextPath(String contextPath) {
+      this.contextPath = contextPath.endsWith("/") ? contextPath : contextPath + "/";
+      return this;
+    }
+
+    /**
+     * Set the latency of every response.
+     *
+     * @param latencyMillis fixed latency in milliseconds
+     * @param jitterMillis  additional random latency (uniformly distributed) in milliseconds
+     * @return this builder
+     */
+    public Builder latency(long latencyMillis, long jitterMillis) {
+      this.latencyMillis = latencyMillis;
+      this.latencyJitterMillis = jitterMillis;
+      return this;
+    }
+
+    /**
+     * Set how many polls of /stats are answered with 202 (busy) before the statistics are ready.
+     *
+     * @param busyPolls the number of busy responses per request
+     * @return this builder
+     */
+    public Builder busyPolls(int busyPolls) {
+      this.busyPolls = busyPolls;
+      return this;
+    }
+
+    public Builder numberOfPages(int numberOfPages) {
+      this.numberOfPages = numberOfPages;
+      return this;
+    }
+
+    public Builder pageSize(int pageSize) {
+      this.pageSize = pageSize;
+      return this;
+    }
+
+    public Builder totalSize(int totalSize) {
+      this.totalSize = totalSize;
+      return this;
+    }
+
+    /**
+     * Set the probability of a request ending with an error file (422) instead of statistics.
+     *
+     * @param errorRate probability between 0 and 1
+     * @return this builder
+     */
+    public Builder errorRate(double errorRate) {
+      this.errorRate = errorRate;
+      return this;
+    }
+
+    /**
+     * Set the probability of any call failing with the failure status code.
+     *
+     * @param failureRate probability between 0 and 1
+     * @return this builder
+     */
+    public Builder failureRate(double failureRate) {
+      this.failureRate = failureRate;
+      return this;
+    }
+
+    public Builder failureStatusCode(int failureStatusCode) {
+      this.failureStatusCode = failureStatusCode;
+      return this;
+    }
+
+    /**
+     * Set the bodies for stats, error and result page responses. Use this to serve the xml format
+     * of a specific LDM.
+     *
+     * @param responseBodies the response bodies
+     * @return this builder
+     */
+    public Builder responseBodies(ResponseBodies responseBodies) {
+      this.responseBodies = responseBodies;
+      return this;
+    }
+
+    public LdmSimulatorConfig build() {
+      return new LdmSimulatorConfig(this);
+    }
+  }
+}
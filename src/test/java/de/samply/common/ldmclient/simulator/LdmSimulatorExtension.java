@@ -0,0 +1,90 @@
+package de.samply.common.ldmclient.simulator;
+
+import de.samply.common.ldmclient.LdmClientConfig;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.junit.jupiter.api.extension.AfterEachCallback;
+import org.junit.jupiter.api.extension.BeforeEachCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+/**
+ * JUnit extension that starts an {@link LdmSimulator} and an http client before each test and
+ * closes them afterwards. Register it as a field:
+ *
+ * <pre>
+ * &#64;RegisterExtension
+ * final LdmSimulatorExtension ldm = new LdmSimulatorExtension(
+ *     LdmSimulatorConfig.builder().numberOfPages(5).build());
+ * </pre>
+ */
+public class LdmSimulatorExtension implements BeforeEachCallback, AfterEachCallback {
+
+  private static final int THREADS = 8;
+
+  private final LdmSimulatorConfig config;
+  private final List<LdmSimulator> simulators = new ArrayList<>();
+  private CloseableHttpClient httpClient;
+  private LdmSimulator simulator;
+
+  public LdmSimulatorExtension() {
+    this(LdmSimulatorConfig.builder().build());
+  }
+
+  public LdmSimulatorExtension(LdmSimulatorConfig config) {
+    this.config = config;
+  }
+
+  @Override
+  public void beforeEach(ExtensionContext context) throws IOException {
+    httpClient = HttpClients.createDefault();
+    simulator = start(config);
+  }
+
+  @Override
+  public void afterEach(ExtensionContext context) throws IOException {
+    for (LdmSimulator started : simulators) {
+      started.close();
+    }
+    simulators.clear();
+    httpClient.close();
+  }
+
+  /**
+   * Start an additional simulator, e.g. with another configuration than the default one. It is
+   * closed after the test.
+   *
+   * @param config the configuration of the simulator
+   * @return the started simulator
+   * @throws IOException if the server can not be started
+   */
+  public LdmSimulator start(LdmSimulatorConfig config) throws IOException {
+    LdmSimulator started = new LdmSimulator(config, THREADS).start();
+    simulators.add(started);
+    return started;
+  }
+
+  /**
+   * Get the simulator that was started with the configuration of this extension.
+   *
+   * @return the simulator
+   */
+  public LdmSimulator getSimulator() {
+    return simulator;
+  }
+
+  public CloseableHttpClient getHttpClient() {
+    return httpClient;
+  }
+
+  /**
+   * Create a client configuration for the simulator of this extension.
+   *
+   * @return the builder of the configuration
+   */
+  public LdmClientConfig.Builder configBuilder() {
+    return LdmClientConfig.builder(simulator.getBaseUrl());
+  }
+}
@@ -0,0 +1,90 @@
+package de.samply.common.ldmclient.simulator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import de.samply.common.ldmclient.LdmClientConfig;
+import de.samply.common.ldmclient.LdmClientException;
+import de.samply.common.ldmclient.model.LdmQueryResult;
+import de.samply.share.model.common.QueryResultStatistic;
+import de.samply.share.model.common.View;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+class LdmSimulatorTest {
+
+  @RegisterExtension
+  final LdmSimulatorExtension ldm = new LdmSimulatorExtension();
+
+  @Test
+  void postViewPollStatsAndFetchPages() throws Exception {
+    SimulatorLdmClient client = startClient(LdmSimulatorConfig.builder()
+        .busyPolls(2).numberOfPages(3).pageSize(4).build());
+
+    String location = client.postView(new View(), false);
+    LdmQueryResult result = pollStatsOrError(client, location);
+
+    assertTrue(result.hasResult());
+    assertEquals(12, (int) result.getResult().getTotalSize());
+    assertEquals(3, result.getResult().getNumberOfPages());
+    for (int page = 0; page < 3; page++) {
+      assertNotNull(client.getResultPage(location, page));
+    }
+    assertTrue(client.isResultPageAvailable(location, 2));
+    assertFalse(client.isResultPageAvailable(location, 3));
+  }
+
+  @Test
+  void errorOfLdm() throws Exception {
+    SimulatorLdmClient client = startClient(LdmSimulatorConfig.builder().errorRate(1).build());
+
+    LdmQueryResult result = pollStatsOrError(client, client.postView(new View(), true));
+
+    assertTrue(result.hasError());
+  }
+
+  @Test
+  void loadGeneratorCountsSuccessfulOperations() throws Exception {
+    SimulatorLdmClient client = startClient(LdmSimulatorConfig.builder().busyPolls(1).build());
+
+    LoadReport report = new LoadGenerator(8)
+        .run(LoadGenerator.postViewAndPollStats(client, new View()), 50, 500);
+
+    assertTrue(report.getCompleted() > 0);
+    assertEquals(0, report.getErrors());
+    assertTrue(report.getLatencyMillis(50) > 0);
+  }
+
+  @Test
+  void loadGeneratorCountsErrorsOfLdm() throws Exception {
+    SimulatorLdmClient client = startClient(LdmSimulatorConfig.builder().errorRate(1).build());
+
+    LoadReport report = new LoadGenerator(8)
+        .run(LoadGenerator.postViewAndPollStats(client, new View()), 50, 500);
+
+    assertEquals(0, report.getCompleted());
+    assertTrue(report.getErrors() > 0);
+    assertEquals(0, report.getLatencyMillis(50));
+  }
+
+  private SimulatorLdmClient startClient(LdmSimulatorConfig config)
+      throws IOException, LdmClientException {
+    LdmSimulator simulator = ldm.start(config);
+    return new SimulatorLdmClient(ldm.getHttpClient(),
+        LdmClientConfig.builder(simulator.getBaseUrl()).build());
+  }
+
+  private static LdmQueryResult pollStatsOrError(SimulatorLdmClient client, String location)
+      throws LdmClientException, InterruptedException {
+    LdmQueryResult result = client.getStatsOrError(location);
+    for (int polls = 0; result.isEmpty() && polls < 100; polls++) {
+      TimeUnit.MILLISECONDS.sleep(10);
+      result = client.getStatsOrError(location);
+    }
+    return result;
+  }
+}
@@ -0,0 +1,151 @@
+package de.samply.common.ldmclient.simulator;
+
+import de.samply.common.ldmclient.LdmClientCqlQuery;
+import de.samply.common.ldmclient.LdmClientException;
+import de.samply.common.ldmclient.LdmClientView;
+import de.samply.common.ldmclient.model.LdmQueryResult;
+import de.samply.share.model.common.QueryResultStatistic;
+import de.samply.share.model.common.View;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Drives an operation against an LDM client at a fixed target rate (open model) and collects
+ * latency and throughput figures.
+ */
+public class LoadGenerator {
+
+  private static final Logger logger = LoggerFactory.getLogger(LoadGenerator.class);
+  private static final long POLL_INTERVAL_MILLIS = 10;
+
+  private final int workers;
+
+  /**
+   * Create a load generator.
+   *
+   * @param workers the maximum number of concurrently running operations
+   */
+  public LoadGenerator(int workers) {
+    this.workers = workers;
+  }
+
+  /**
+   * Operation that posts a view and polls its statistics until they are available. An error
+   * (422) of the LDM fails the operation.
+   *
+   * @param client the client under test
+   * @param view   the view to post
+   * @return the operation
+   */
+  public static Callable<QueryResultStatistic> postViewAndPollStats(
+      LdmClientView<?, ?, ?, ?> client, View view) {
+    return () -> {
+      String location = client.postView(view, true);
+      LdmQueryResult result = client.getStatsOrError(location);
+      while (result.isEmpty()) {
+        TimeUnit.MILLISECONDS.sleep(POLL_INTERVAL_MILLIS);
+        result = client.getStatsOrError(location);
+      }
+      if (result.hasError()) {
+        throw new LdmClientException("LDM answered with an error for " + location);
+      }
+      return result.getResult();
+    };
+  }
+
+  /**
+   * Operation that fetches all pages of an existing result.
+   *
+   * @param client   the client under test
+   * @param location the location of the result
+   * @param pages    the number of pages to fetch
+   * @return the operation
+   */
+  public static Callable<Integer> fetchAllPages(LdmClientView<?, ?, ?, ?> client, String location,
+      int pages) {
+    return () -> {
+      for (int page = 0; page < pages; page++) {
+        client.getResultPage(location, page);
+      }
+      return pages;
+    };
+  }
+
+  /**
+   * Operation that posts a CQL query (library and measure).
+   *
+   * @param client     the client under test
+   * @param query      the CQL query
+   * @param entityType the entity type (patient or specimen)
+   * @return the operation
+   */
+  public static Callable<String> postCqlQuery(LdmClientCqlQuery<?, ?, ?> client, String query,
+      String entityType) {
+    return () -> client.postQuery(query, entityType, true);
+  }
+
+  /**
+   * Run the operation at the given rate.
+   *
+   * @param operation        the operation to run
+   * @param targetRatePerSec the number of operations to start per second
+   * @param durationMillis   how long to generate load
+   * @return the report of the run
+   * @throws InterruptedException if interrupted while waiting for running operations
+   */
+  public LoadReport run(Callable<?> operation, double targetRatePerSec, long durationMillis)
+      throws InterruptedException {
+    long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / targetRatePerSec);
+    int capacity = (int) Math.min(Integer.MAX_VALUE,
+        Math.ceil(targetRatePerSec * durationMillis / 1000.0) + 1);
+    long[] latencies = new long[capacity];
+    AtomicLong succeeded = new AtomicLong();
+    AtomicLong errors = new AtomicLong();
+    AtomicLong missed = new AtomicLong();
+    Semaphore permits = new Semaphore(workers);
+
+    ExecutorService pool = Executors.newFixedThreadPool(workers);
+    ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor();
+    long start = System.nanoTime();
+    ticker.scheduleAtFixedRate(() -> {
+      if (!permits.tryAcquire()) {
+        missed.incrementAndGet();
+        return;
+      }
+      long scheduled = System.nanoTime();
+      pool.execute(() -> {
+        try {
+          operation.call();
+          long index = succeeded.getAndIncrement();
+          if (index < latencies.length) {
+            latencies[(int) index] = System.nanoTime() - scheduled;
+          }
+        } catch (Exception e) {
+          errors.incrementAndGet();
+          logger.debug("Operation failed", e);
+        } finally {
+          permits.release();
+        }
+      });
+    }, 0, intervalNanos, TimeUnit.NANOSECONDS);
+
+    TimeUnit.MILLISECONDS.sleep(durationMillis);
+    ticker.shutdownNow();
+    ticker.awaitTermination(1, TimeUnit.MINUTES);
+    pool.shutdown();
+    pool.awaitTermination(1, TimeUnit.MINUTES);
+    long duration = System.nanoTime() - start;
+
+    int count = (int) Math.min(succeeded.get(), latencies.length);
+    long[] recorded = new long[count];
+    System.arraycopy(latencies, 0, recorded, 0, count);
+    return new LoadReport(recorded, errors.get(), missed.get(), duration);
+  }
+}
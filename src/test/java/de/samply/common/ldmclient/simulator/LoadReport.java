@@ -0,0 +1,84 @@
+package de.samply.common.ldmclient.simulator;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency percentiles and throughput of a run of the {@link LoadGenerator}. Latencies are those
+ * of the successful operations only.
+ */
+public final class LoadReport {
+
+  private final long[] latenciesNanos;
+  private final long errors;
+  private final long missed;
+  private final long durationNanos;
+
+  LoadReport(long[] latenciesNanos, long errors, long missed, long durationNanos) {
+    this.latenciesNanos = latenciesNanos.clone();
+    Arrays.sort(this.latenciesNanos);
+    this.errors = errors;
+    this.missed = missed;
+    this.durationNanos = durationNanos;
+  }
+
+  /**
+   * Get the number of successfully completed operations.
+   *
+   * @return the number of successful operations
+   */
+  public long getCompleted() {
+    return latenciesNanos.length;
+  }
+
+  public long getErrors() {
+    return errors;
+  }
+
+  /**
+   * Get the number of operations that could not be started because all workers were busy.
+   *
+   * @return the number of missed operations
+   */
+  public long getMissed() {
+    return missed;
+  }
+
+  /**
+   * Get the number of successfully completed operations per second.
+   *
+   * @return the throughput
+   */
+  public double getThroughput() {
+    if (durationNanos <= 0) {
+      return 0;
+    }
+    return latenciesNanos.length * (double) TimeUnit.SECONDS.toNanos(1)
+        / durationNanos;
+  }
+
+  /**
+   * Get the latency at the given percentile.
+   *
+   * @param percentile the percentile, between 0 and 100
+   * @return the latency in milliseconds
+   */
+  public double getLatencyMillis(double percentile) {
+    if (latenciesNanos.length == 0) {
+      return 0;
+    }
+    int index = (int) Math.ceil(percentile / 100.0 * latenciesNanos.length) - 1;
+    index = Math.max(0, Math.min(latenciesNanos.length - 1, index));
+    return latenciesNanos[index] / 1e6;
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "completed=%d errors=%d missed=%d throughput=%.1f/s "
+            + "p50=%.2fms p90=%.2fms p99=%.2fms p99.9=%.2fms max=%.2fms",
+        getCompleted(), errors, missed, getThroughput(), getLatencyMillis(50),
+        getLatencyMillis(90), getLatencyMillis(99), getLatencyMillis(99.9),
+        getLatencyMillis(100));
+  }
+}
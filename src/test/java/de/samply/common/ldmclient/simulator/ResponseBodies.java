@@ -0,0 +1,97 @@
+package de.samply.common.ldmclient.simulator;
+
+/**
+ * Provides the bodies that an {@link LdmSimulator} answers with.
+ */
+public interface ResponseBodies {
+
+  /**
+   * MDR key of the gender of the entities of the default result pages.
+   */
+  String GENDER = "urn:dktk:dataelement:1:3";
+
+  /**
+   * MDR key of the age of the entities of the default result pages.
+   */
+  String AGE = "urn:dktk:dataelement:28:1";
+
+  String stats(String requestId, int totalSize, int numberOfPages);
+
+  String error(String requestId);
+
+  String resultPage(String requestId, int page, int pageSize);
+
+  /**
+   * Get the gender of an entity of the default result pages, "M" or "W" alternately.
+   *
+   * @param entity the index of the entity over all pages
+   * @return the gender
+   */
+  static String gender(int entity) {
+    return entity % 2 == 0 ? "M" : "W";
+  }
+
+  /**
+   * Get the age of an entity of the default result pages, between 20 and 79.
+   *
+   * @param entity the index of the entity over all pages
+   * @return the age
+   */
+  static int age(int entity) {
+    return 20 + entity % 60;
+  }
+
+  /**
+   * Bodies in the format of the common share-dto namespaces, with one namespace per element type.
+   */
+  class Default implements ResponseBodies {
+
+    private static final String NAMESPACE = "http://schema.samply.de/common/";
+
+    @Override
+    public String stats(String requestId, int totalSize, int numberOfPages) {
+      return "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+          + "<s:queryResultStatistic xmlns:s=\"" + NAMESPACE + "QueryResultStatistic\">"
+          + "<requestId>" + requestId + "</requestId>"
+          + "<numberOfPages>" + numberOfPages + "</numberOfPages>"
+          + "<totalSize>" + totalSize + "</totalSize>"
+          + "</s:queryResultStatistic>";
+    }
+
+    @Override
+    public String error(String requestId) {
+      return "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+          + "<Error xmlns=\"" + NAMESPACE + "Error\" xmlns:k=\"" + NAMESPACE + "MdrKey\""
+          + " xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\""
+          + " xmlns:xs=\"http://www.w3.org/2001/XMLSchema\" errorCode=\"1003\">"
+          + "<Description xsi:type=\"xs:string\">Unknown MDR keys</Description>"
+          + "<k:MdrKey>urn:mdr16:dataelement:1:1</k:MdrKey>"
+          + "</Error>";
+    }
+
+    @Override
+    public String resultPage(String requestId, int page, int pageSize) {
+      StringBuilder builder = new StringBuilder(512 + pageSize * 256);
+      builder.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>")
+          .append("<QueryResult xmlns=\"").append(NAMESPACE).append("QueryResult\"")
+          .append(" xmlns:e=\"").append(NAMESPACE).append("Entity\"")
+          .append(" xmlns:a=\"").append(NAMESPACE).append("Attribute\"")
+          .append(" xmlns:k=\"").append(NAMESPACE).append("MdrKey\"")
+          .append(" xmlns:v=\"").append(NAMESPACE).append("Value\"")
+          .append(" id=\"").append(requestId).append("\">");
+      for (int i = 0; i < pageSize; i++) {
+        int entity = page * pageSize + i;
+        builder.append("<e:Entity id=\"").append(entity).append("\">");
+        appendAttribute(builder, GENDER, gender(entity));
+        appendAttribute(builder, AGE, String.valueOf(age(entity)));
+        builder.append("</e:Entity>");
+      }
+      return builder.append("</QueryResult>").toString();
+    }
+
+    private static void appendAttribute(StringBuilder builder, String mdrKey, String value) {
+      builder.append("<a:Attribute><k:MdrKey>").append(mdrKey).append("</k:MdrKey><v:Value>")
+          .append(value).append("</v:Value></a:Attribute>");
+    }
+  }
+}
@@ -0,0 +1,97 @@
+package de.samply.common.ldmclient.simulator;
+
+import de.samply.common.ldmclient.LdmClientConfig;
+import de.samply.common.ldmclient.LdmClientException;
+import de.samply.common.ldmclient.LdmClientView;
+import de.samply.common.ldmclient.model.LdmQueryResult;
+import de.samply.common.ldmclient.transport.LdmTransport;
+import de.samply.share.model.common.Error;
+import de.samply.share.model.common.ObjectFactory;
+import de.samply.share.model.common.QueryResult;
+import de.samply.share.model.common.QueryResultStatistic;
+import de.samply.share.model.common.View;
+import org.apache.http.impl.client.CloseableHttpClient;
+
+/**
+ * Minimal LDM client for the common namespace, as served by {@link LdmSimulator} with the
+ * {@link ResponseBodies.Default} bodies.
+ */
+public class SimulatorLdmClient extends
+    LdmClientView<QueryResult, QueryResultStatistic, Error, View> {
+
+  public SimulatorLdmClient(CloseableHttpClient httpClient, LdmClientConfig config)
+      throws LdmClientException {
+    super(httpClient, config);
+  }
+
+  public SimulatorLdmClient(LdmTransport transport, LdmClientConfig config)
+      throws LdmClientException {
+    super(transport, config);
+  }
+
+  @Override
+  protected Class<View> getSpecificViewClass() {
+    return View.class;
+  }
+
+  @Override
+  protected Class<?> getObjectFactoryClassForPostView() {
+    return ObjectFactory.class;
+  }
+
+  @Override
+  protected Class<?> getObjectFactoryClassForResult() {
+    return QueryResult.class;
+  }
+
+  @Override
+  protected View convertCommonViewToSpecificView(View view) {
+    return view;
+  }
+
+  @Override
+  protected View convertSpecificViewToCommonView(View specificView) {
+    return specificView;
+  }
+
+  @Override
+  protected LdmQueryResult convertQueryResultStatisticToCommonQueryResultStatistic(
+      QueryResultStatistic qrs) {
+    return new LdmQueryResult(qrs);
+  }
+
+  @Override
+  protected LdmQueryResult convertSpecificErrorToCommonError(Error error) {
+    return new LdmQueryResult(error);
+  }
+
+  @Override
+  protected Class<QueryResult> getResultClass() {
+    return QueryResult.class;
+  }
+
+  @Override
+  protected Class<QueryResultStatistic> getStatisticsClass() {
+    return QueryResultStatistic.class;
+  }
+
+  @Override
+  protected Class<Error> getErrorClass() {
+    return Error.class;
+  }
+
+  @Override
+  public String getUserAgentInfo() {
+    return "LdmSimulator/" + getVersionString();
+  }
+
+  @Override
+  public QueryResult getResult(String location) throws LdmClientException {
+    throw new LdmClientException("Use getResultPage to read the result of the simulator.");
+  }
+
+  @Override
+  public String getVersionString() {
+    return "1.0";
+  }
+}
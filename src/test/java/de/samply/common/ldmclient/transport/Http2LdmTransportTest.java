@@ -0,0 +1,90 @@
+package de.samply.common.ldmclient.transport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.EntityDetails;
+import org.apache.hc.core5.http.HttpException;
+import org.apache.hc.core5.http.HttpRequest;
+import org.apache.hc.core5.http.Message;
+import org.apache.hc.core5.http.URIScheme;
+import org.apache.hc.core5.http.impl.bootstrap.HttpAsyncServer;
+import org.apache.hc.core5.http.message.BasicHttpResponse;
+import org.apache.hc.core5.http.nio.AsyncRequestConsumer;
+import org.apache.hc.core5.http.nio.AsyncServerRequestHandler;
+import org.apache.hc.core5.http.nio.entity.AsyncEntityProducers;
+import org.apache.hc.core5.http.nio.entity.StringAsyncEntityConsumer;
+import org.apache.hc.core5.http.nio.support.BasicRequestConsumer;
+import org.apache.hc.core5.http.nio.support.BasicResponseProducer;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.http2.HttpVersionPolicy;
+import org.apache.hc.core5.http2.impl.nio.bootstrap.H2ServerBootstrap;
+import org.apache.hc.core5.io.CloseMode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class Http2LdmTransportTest {
+
+  private static final String VALUE = "<Value>Müller</Value>";
+
+  private HttpAsyncServer server;
+  private String baseUrl;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    server = H2ServerBootstrap.bootstrap()
+        .setVersionPolicy(HttpVersionPolicy.FORCE_HTTP_2)
+        .register("*", new AsyncServerRequestHandler<Message<HttpRequest, String>>() {
+          @Override
+          public AsyncRequestConsumer<Message<HttpRequest, String>> prepare(HttpRequest request,
+              EntityDetails entityDetails, HttpContext context) {
+            return new BasicRequestConsumer<>(
+                entityDetails == null ? null : new StringAsyncEntityConsumer());
+          }
+
+          @Override
+          public void handle(Message<HttpRequest, String> message, ResponseTrigger trigger,
+              HttpContext context) throws IOException, HttpException {
+            // the path selects the charset of the response
+            String path = message.getHead().getPath();
+            ContentType contentType = path.endsWith("latin1")
+                ? ContentType.create("application/xml", StandardCharsets.ISO_8859_1)
+                : ContentType.create("application/xml");
+            byte[] body = VALUE.getBytes(contentType.getCharset() == null
+                ? StandardCharsets.UTF_8 : contentType.getCharset());
+            trigger.submitResponse(new BasicResponseProducer(new BasicHttpResponse(200),
+                AsyncEntityProducers.create(body, contentType)), context);
+          }
+        }).create();
+    server.start();
+    InetSocketAddress address = (InetSocketAddress) server
+        .listen(new InetSocketAddress("127.0.0.1", 0), URIScheme.HTTP).get().getAddress();
+    baseUrl = "http://127.0.0.1:" + address.getPort() + "/";
+  }
+
+  @AfterEach
+  void tearDown() {
+    server.close(CloseMode.IMMEDIATE);
+  }
+
+  @Test
+  void decodesBodyAsUtf8WithoutCharset() throws Exception {
+    try (Http2LdmTransport transport = new Http2LdmTransport()) {
+      LdmResponse response = transport.execute(LdmRequest.get(baseUrl + "utf8"));
+
+      assertEquals(200, response.getStatusCode());
+      assertEquals(VALUE, response.getBody());
+    }
+  }
+
+  @Test
+  void decodesBodyWithCharsetOfContentType() throws Exception {
+    try (Http2LdmTransport transport = new Http2LdmTransport()) {
+      assertEquals(VALUE, transport.execute(LdmRequest.get(baseUrl + "latin1")).getBody());
+    }
+  }
+}
@@ -0,0 +1,170 @@
+package de.samply.common.ldmclient.transport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class SchedulingLdmTransportTest {
+
+  private final GateTransport delegate = new GateTransport();
+  private final ExecutorService executor = Executors.newCachedThreadPool();
+
+  @AfterEach
+  void tearDown() {
+    delegate.gate.release(1000);
+    executor.shutdownNow();
+  }
+
+  @Test
+  void startsRequestsByWeight() throws Exception {
+    SchedulingLdmTransport transport = SchedulingLdmTransport.builder(delegate, 1).build();
+    submit(transport, RequestPriority.POLLING, "hold");
+    assertEquals("hold", delegate.nextStarted());
+    for (int i = 0; i < 9; i++) {
+      submit(transport, RequestPriority.BULK, "bulk");
+      submit(transport, RequestPriority.INTERACTIVE, "interactive");
+    }
+    awaitQueued(transport, RequestPriority.BULK, 9);
+    awaitQueued(transport, RequestPriority.INTERACTIVE, 9);
+
+    List<String> order = new ArrayList<>();
+    for (int i = 0; i < 18; i++) {
+      delegate.gate.release();
+      order.add(delegate.nextStarted());
+    }
+
+    // interactive requests get 8 of 9 slots while both classes are waiting
+    assertEquals(8, order.subList(0, 9).stream().filter("interactive"::equals).count());
+    assertEquals(9, order.subList(0, 11).stream().filter("interactive"::equals).count());
+  }
+
+  @Test
+  void reservesSlotsFromBulkByDefault() throws Exception {
+    SchedulingLdmTransport transport = SchedulingLdmTransport.builder(delegate, 4).build();
+    for (int i = 0; i < 4; i++) {
+      submit(transport, RequestPriority.BULK, "bulk");
+    }
+    awaitQueued(transport, RequestPriority.BULK, 1);
+    assertEquals(3, transport.getWaitStatistics(RequestPriority.BULK).getRunning());
+
+    submit(transport, RequestPriority.INTERACTIVE, "interactive");
+    awaitRunning(transport, RequestPriority.INTERACTIVE, 1);
+
+    assertEquals(1, SchedulingLdmTransport.defaultCap(RequestPriority.BULK, 1));
+    assertEquals(1, SchedulingLdmTransport.defaultCap(RequestPriority.BULK, 2));
+    assertEquals(15, SchedulingLdmTransport.defaultCap(RequestPriority.BULK, 20));
+    assertEquals(20, SchedulingLdmTransport.defaultCap(RequestPriority.POLLING, 20));
+  }
+
+  @Test
+  void capsPriorityClass() throws Exception {
+    SchedulingLdmTransport transport = SchedulingLdmTransport.builder(delegate, 4)
+        .cap(RequestPriority.POLLING, 1).cap(RequestPriority.BULK, 4).build();
+    submit(transport, RequestPriority.POLLING, "poll");
+    submit(transport, RequestPriority.POLLING, "poll");
+    for (int i = 0; i < 3; i++) {
+      submit(transport, RequestPriority.BULK, "bulk");
+    }
+
+    awaitRunning(transport, RequestPriority.BULK, 3);
+    assertEquals(1, transport.getWaitStatistics(RequestPriority.POLLING).getRunning());
+    assertEquals(1, transport.getWaitStatistics(RequestPriority.POLLING).getQueued());
+  }
+
+  @Test
+  void releasesSlotsOfCancelledRequests() throws Exception {
+    SchedulingLdmTransport transport = SchedulingLdmTransport.builder(delegate, 1).build();
+    Future<LdmResponse> hold = submit(transport, RequestPriority.BULK, "hold");
+    assertEquals("hold", delegate.nextStarted());
+    Future<LdmResponse> waiting = submit(transport, RequestPriority.INTERACTIVE, "waiting");
+    awaitQueued(transport, RequestPriority.INTERACTIVE, 1);
+
+    waiting.cancel(true);
+    awaitQueued(transport, RequestPriority.INTERACTIVE, 0);
+    // a running request that is interrupted gives its slot back, too
+    hold.cancel(true);
+    awaitRunning(transport, RequestPriority.BULK, 0);
+
+    for (RequestPriority priority : RequestPriority.values()) {
+      assertEquals(0, transport.getWaitStatistics(priority).getRunning());
+      assertEquals(0, transport.getWaitStatistics(priority).getQueued());
+    }
+    assertEquals(0, transport.getWaitStatistics(RequestPriority.INTERACTIVE).getStarted());
+    delegate.gate.release();
+    assertEquals(200, submit(transport, RequestPriority.INTERACTIVE, "next")
+        .get(5, TimeUnit.SECONDS).getStatusCode());
+  }
+
+  private Future<LdmResponse> submit(SchedulingLdmTransport transport, RequestPriority priority,
+      String uri) {
+    return executor.submit(() -> transport.execute(LdmRequest.get(uri).priority(priority)));
+  }
+
+  private static void awaitQueued(SchedulingLdmTransport transport, RequestPriority priority,
+      int queued) throws InterruptedException {
+    for (int i = 0; i < 500; i++) {
+      if (transport.getWaitStatistics(priority).getQueued() == queued) {
+        return;
+      }
+      TimeUnit.MILLISECONDS.sleep(10);
+    }
+    fail("Expected " + queued + " queued: " + transport.getWaitStatistics(priority));
+  }
+
+  private static void awaitRunning(SchedulingLdmTransport transport, RequestPriority priority,
+      int running) throws InterruptedException {
+    for (int i = 0; i < 500; i++) {
+      if (transport.getWaitStatistics(priority).getRunning() == running) {
+        return;
+      }
+      TimeUnit.MILLISECONDS.sleep(10);
+    }
+    fail("Expected " + running + " running: " + transport.getWaitStatistics(priority));
+  }
+
+  /**
+   * Transport that records the started requests and blocks each until a permit of the gate is
+   * released.
+   */
+  private static final class GateTransport implements LdmTransport {
+
+    private final BlockingQueue<String> started = new LinkedBlockingQueue<>();
+    private final Semaphore gate = new Semaphore(0);
+
+    @Override
+    public LdmResponse execute(LdmRequest request) throws IOException {
+      started.add(request.getUri());
+      try {
+        gate.acquire();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException();
+      }
+      return new LdmResponse(200, null);
+    }
+
+    private String nextStarted() throws InterruptedException {
+      String uri = started.poll(5, TimeUnit.SECONDS);
+      assertNotNull(uri, "No request started");
+      return uri;
+    }
+
+    @Override
+    public void close() {
+    }
+  }
+}